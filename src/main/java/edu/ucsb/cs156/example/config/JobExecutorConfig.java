@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `JobExecutorConfig` class defines the bounded executor that runs background jobs, so a burst
+ * of job launches cannot take threads away from the rest of the application.
+ */
+@Configuration
+@Slf4j
+public class JobExecutorConfig {
+
+  /** Name of the executor bean used by {@code @Async} in JobService. */
+  public static final String JOB_EXECUTOR = "jobTaskExecutor";
+
+  /** Name of the executor bean that writes job log streams to clients. */
+  public static final String LOG_STREAM_EXECUTOR = "jobLogStreamExecutor";
+
+  @Value("${app.jobs.executor.coreSize:2}")
+  private int coreSize;
+
+  @Value("${app.jobs.executor.maxSize:4}")
+  private int maxSize;
+
+  @Value("${app.jobs.executor.queueCapacity:25}")
+  private int queueCapacity;
+
+  @Value("${app.jobs.executor.virtualThreads:false}")
+  private boolean virtualThreads;
+
+  @Value("${app.jobs.logStream.senderThreads:4}")
+  private int logStreamSenderThreads;
+
+  @Value("${app.jobs.logStream.queueCapacity:1000}")
+  private int logStreamQueueCapacity;
+
+  /**
+   * Executor for background jobs. Once all threads are busy and the queue is full, new jobs are
+   * rejected with a TaskRejectedException, which JobService records as a "rejected" job. When
+   * virtualThreads is enabled the same limits apply, but the workers are Java 21 virtual threads.
+   *
+   * @return the job executor
+   */
+  @Bean(name = JOB_EXECUTOR)
+  public ThreadPoolTaskExecutor jobTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(coreSize);
+    executor.setMaxPoolSize(maxSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("job-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    if (virtualThreads) {
+      executor.setThreadFactory(Thread.ofVirtual().name("job-", 0).factory());
+      executor.setAllowCoreThreadTimeOut(true);
+    }
+    log.info(
+        "job executor: core={} max={} queue={} virtualThreads={}",
+        coreSize,
+        maxSize,
+        queueCapacity,
+        virtualThreads);
+    return executor;
+  }
+
+  /**
+   * Executor for job log streams. Writing to a slow client blocks, so the writes and the catch-up
+   * queries behind them run here rather than on a job thread or the shared scheduler thread. Each
+   * stream has at most one drain queued at a time. Once all threads are busy and the queue is full,
+   * further drains are rejected with a TaskRejectedException, and JobLogStreamService closes the
+   * stream rather than letting the backlog grow.
+   *
+   * @return the log stream executor
+   */
+  @Bean(name = LOG_STREAM_EXECUTOR)
+  public ThreadPoolTaskExecutor jobLogStreamExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(logStreamSenderThreads);
+    executor.setMaxPoolSize(logStreamSenderThreads);
+    executor.setQueueCapacity(logStreamQueueCapacity);
+    executor.setThreadNamePrefix("job-log-stream-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    return executor;
+  }
+
+  /**
+   * Defining the job executor makes Spring Boot skip its default application executor, which is
+   * still used for async MVC responses such as the NDJSON exports, so it is declared here too.
+   *
+   * @param builder builder configured from the spring.task.execution properties
+   * @return the default application executor
+   */
+  @Primary
+  @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+  public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return builder.build();
+  }
+}
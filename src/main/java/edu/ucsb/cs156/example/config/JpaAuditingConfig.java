@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * The `JpaAuditingConfig` class turns on Spring Data auditing, so that entities using the
+ * AuditingEntityListener (such as Job) get their {@code @CreatedDate} and {@code @LastModifiedDate}
+ * fields filled in when they are saved.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * The default provider returns a LocalDateTime, which cannot be stored in the ZonedDateTime
+   * fields used by our entities.
+   *
+   * @return a provider of the current time with its zone
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
@@ -1,20 +1,42 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.Versioned;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
+  /** Response header carrying the cursor to pass as {@code after} to fetch the next page. */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Value("${app.pagination.allowUnbounded:true}")
+  private boolean allowUnbounded;
+
+  @Value("${app.pagination.defaultLimit:100}")
+  private int defaultLimit;
+
+  @Value("${app.pagination.maxLimit:1000}")
+  private int maxLimit;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +56,96 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns a weak ETag for a collection of versioned entities, or null if any of the
+   * rows is not versioned.
+   *
+   * <p>The tag is an MD5 digest of each row's primary key and {@code @Version}, in order, so it
+   * changes whenever a row is added, removed, reordered or updated. The row's {@code hashCode()} is
+   * mixed in as well, so a row deleted and re-created under the same key at the same version still
+   * gets a new tag. It is computed without serializing the rows, so a request whose {@code
+   * If-None-Match} header matches gets a 304 before Jackson runs. The tag is weak because it stands
+   * for the rows rather than the exact bytes of the JSON.
+   *
+   * @param rows the rows of the response
+   * @return the weak ETag, or null
+   */
+  protected static String eTagOf(Iterable<?> rows) {
+    String digest = digestOf(rows);
+    return digest == null ? null : "W/\"" + digest + "\"";
+  }
+
+  /**
+   * This method returns a single versioned entity with its strong ETag, so that a request with a
+   * matching {@code If-None-Match} header gets a 304.
+   *
+   * @param entity the entity
+   * @param <T> the entity type
+   * @return the entity, with an ETag header
+   */
+  protected <T extends Versioned> ResponseEntity<T> withETag(T entity) {
+    return ResponseEntity.ok().eTag("\"" + digestOf(List.of(entity)) + "\"").body(entity);
+  }
+
+  private static String digestOf(Iterable<?> rows) {
+    StringBuilder pairs = new StringBuilder();
+    for (Object row : rows) {
+      if (!(row instanceof Versioned versioned)) {
+        return null;
+      }
+      // the key is length-prefixed so that no two lists of pairs produce the same text
+      String key = String.valueOf(versioned.primaryKey());
+      pairs
+          .append(key.length())
+          .append(':')
+          .append(key)
+          .append('@')
+          .append(versioned.getVersion())
+          .append('#')
+          .append(row.hashCode())
+          .append('\n');
+    }
+    return DigestUtils.md5DigestAsHex(pairs.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * This method returns one keyset page of a listing, or the whole listing when the caller did not
+   * ask for a page and unbounded listings are allowed (app.pagination.allowUnbounded).
+   *
+   * <p>Rows are returned in ascending key order. When the page is full, the key of its last row is
+   * returned in the {@value #NEXT_CURSOR_HEADER} header and can be passed back as {@code after}.
+   * Listings of versioned entities also carry an ETag (see {@link #eTagOf(Iterable)}).
+   *
+   * @param after key of the last row already seen, or null to start at the beginning
+   * @param limit requested page size, or null for the default (clamped to app.pagination.maxLimit)
+   * @param first key that sorts before every row, used when {@code after} is null
+   * @param findAll supplies the legacy unbounded listing
+   * @param findPage fetches rows whose key is greater than the given key, in key order
+   * @param keyOf extracts the key of a row
+   * @param <T> the entity type
+   * @param <K> the key type
+   * @return the rows, with the next cursor header when more rows may follow
+   */
+  protected <T, K> ResponseEntity<Iterable<T>> keysetPage(
+      K after,
+      Integer limit,
+      K first,
+      Supplier<Iterable<T>> findAll,
+      BiFunction<K, Limit, List<T>> findPage,
+      Function<T, K> keyOf) {
+    if (after == null && limit == null && allowUnbounded) {
+      Iterable<T> all = findAll.get();
+      return ResponseEntity.ok().eTag(eTagOf(all)).body(all);
+    }
+    int pageSize = Math.max(1, Math.min(limit == null ? defaultLimit : limit, maxLimit));
+    List<T> rows = findPage.apply(after == null ? first : after, Limit.of(pageSize));
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTagOf(rows));
+    if (rows.size() == pageSize) {
+      response.header(NEXT_CURSOR_HEADER, String.valueOf(keyOf.apply(rows.get(pageSize - 1))));
+    }
+    return response.body(rows);
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -47,4 +159,19 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles the IllegalArgumentException thrown when a request parameter, such as a
+   * paging cursor, is malformed.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({IllegalArgumentException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleIllegalArgumentException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
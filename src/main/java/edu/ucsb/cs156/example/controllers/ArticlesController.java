@@ -4,14 +4,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.services.search.ArticleSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,17 +35,59 @@ public class ArticlesController extends ApiController {
 
   @Autowired ArticleRepository articleRepository;
 
+  @Autowired ArticleSearchService articleSearchService;
+
+  @Value("${app.articles.search.maxLimit:100}")
+  private int maxSearchLimit;
+
   /**
    * List all Articles
    *
+   * @param after id of the last article already seen; pages start after it
+   * @param limit maximum number of articles to return
    * @return an iterable of Article
    */
   @Operation(summary = "List all articles")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Article> allArticles() {
-    Iterable<Article> articles = articleRepository.findAll();
-    return articles;
+  public ResponseEntity<Iterable<Article>> allArticles(
+      @Parameter(
+              name = "after",
+              description = "id of the last article already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of articles to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        articleRepository::findAll,
+        articleRepository::findByIdGreaterThanOrderByIdAsc,
+        Article::getId);
+  }
+
+  /**
+   * Search articles by the words in their title, url and explanation
+   *
+   * @param q the words to search for
+   * @param limit maximum number of articles to return, at most app.articles.search.maxLimit
+   * @return matching articles, best match first
+   */
+  @Operation(summary = "Search articles")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/search")
+  public ResponseEntity<List<Article>> searchArticles(
+      @Parameter(name = "q", description = "words to search for") @RequestParam String q,
+      @Parameter(name = "limit", description = "maximum number of articles to return")
+          @RequestParam(defaultValue = "20")
+          int limit) {
+    List<Article> articles =
+        articleSearchService.search(q, Math.max(1, Math.min(limit, maxSearchLimit)));
+    return ResponseEntity.ok().eTag(eTagOf(articles)).body(articles);
   }
 
   /**
@@ -84,6 +130,7 @@ public class ArticlesController extends ApiController {
     article.setDateAdded(dateAdded);
 
     Article savedArticle = articleRepository.save(article);
+    articleSearchService.articleSaved(savedArticle);
 
     return savedArticle;
   }
@@ -97,13 +144,13 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Get a single article")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Article getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Article> getById(@Parameter(name = "id") @RequestParam Long id) {
     Article article =
         articleRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
-    return article;
+    return withETag(article);
   }
 
   /**
@@ -131,6 +178,7 @@ public class ArticlesController extends ApiController {
     article.setDateAdded(incoming.getDateAdded());
 
     articleRepository.save(article);
+    articleSearchService.articleSaved(article);
 
     return article;
   }
@@ -151,6 +199,7 @@ public class ArticlesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
     articleRepository.delete(article);
+    articleSearchService.articleDeleted(id);
     return genericMessage("Article with id %s deleted".formatted(id));
   }
 }
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+
+/**
+ * Marks a controller method that writes reference data. Every cache named by the controller's
+ * {@link CacheConfig} is cleared before the method runs and again once it has returned.
+ *
+ * <p>Controllers are not transactional, so by the time the method returns each repository write has
+ * committed. A listing read by a concurrent request while the write was in progress may have put
+ * the old rows back into the cache after the first eviction; the second one removes them, so the
+ * next read sees the write.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Caching(
+    evict = {
+      @CacheEvict(allEntries = true, beforeInvocation = true),
+      @CacheEvict(allEntries = true)
+    })
+public @interface EvictCachesAroundWrite {}
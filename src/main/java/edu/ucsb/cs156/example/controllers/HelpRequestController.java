@@ -4,13 +4,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for HelpRequest */
 @Tag(name = "HelpRequests")
@@ -32,17 +38,107 @@ public class HelpRequestController extends ApiController {
   HelpRequestRepository
       helpRequestRepository; // Uppercase = class, lowercase = variable (convention)
 
+  @Autowired NdjsonExportService ndjsonExportService;
+
   /**
    * List all HelpRequests
    *
+   * @param after id of the last help request already seen; pages start after it
+   * @param limit maximum number of help requests to return
    * @return an iterable of HelpRequests
    */
   @Operation(summary = "List all help requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<HelpRequest> allHelpRequests() {
-    Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
-    return helpRequests;
+  public ResponseEntity<Iterable<HelpRequest>> allHelpRequests(
+      @Parameter(
+              name = "after",
+              description = "id of the last help request already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of help requests to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        helpRequestRepository::findAll,
+        helpRequestRepository::findByIdGreaterThanOrderByIdAsc,
+        HelpRequest::getId);
+  }
+
+  /**
+   * List the queue of unsolved help requests, oldest first. Claimed requests stay in the queue,
+   * with claimedBy showing which TA has them.
+   *
+   * @return the unsolved help requests, in requestTime order
+   */
+  @Operation(summary = "List unsolved help requests, oldest first")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/queue")
+  public ResponseEntity<Iterable<HelpRequest>> helpRequestQueue() {
+    List<HelpRequest> queue = helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc();
+    return ResponseEntity.ok().eTag(eTagOf(queue)).body(queue);
+  }
+
+  /**
+   * Claim an unsolved help request for the current user. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param id the id of the help request
+   * @return the claimed help request, or a 409 if it is already claimed or solved
+   */
+  @Operation(summary = "Claim an unsolved help request")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/claim")
+  public ResponseEntity<Object> claimHelpRequest(@Parameter(name = "id") @RequestParam Long id) {
+    String email = getCurrentUser().getUser().getEmail();
+    int claimed = helpRequestRepository.claim(id, email, LocalDateTime.now());
+    return transitionResult(id, claimed, "already claimed or solved");
+  }
+
+  /**
+   * Mark a help request solved. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param id the id of the help request
+   * @return the solved help request, or a 409 if it is already solved or claimed by someone else
+   */
+  @Operation(summary = "Mark a help request solved")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/solve")
+  public ResponseEntity<Object> solveHelpRequest(@Parameter(name = "id") @RequestParam Long id) {
+    String email = getCurrentUser().getUser().getEmail();
+    int solved = helpRequestRepository.solve(id, email, LocalDateTime.now());
+    return transitionResult(id, solved, "already solved or claimed by someone else");
+  }
+
+  private ResponseEntity<Object> transitionResult(Long id, int updated, String conflict) {
+    HelpRequest helpRequest =
+        helpRequestRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+    if (updated == 0) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body(genericMessage("HelpRequest with id %s is %s".formatted(id, conflict)));
+    }
+    return ResponseEntity.ok(helpRequest);
+  }
+
+  /**
+   * Export all help requests as newline-delimited JSON, streamed straight from the database
+   *
+   * @return a streaming response with one help request per line
+   */
+  @Operation(summary = "Export all help requests as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportHelpRequests() {
+    StreamingResponseBody body =
+        out -> ndjsonExportService.export(helpRequestRepository::streamAllByOrderByIdAsc, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   /**
@@ -98,13 +194,13 @@ public class HelpRequestController extends ApiController {
   @Operation(summary = "Get a single help request")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public HelpRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<HelpRequest> getById(@Parameter(name = "id") @RequestParam Long id) {
     HelpRequest helpRequest =
         helpRequestRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
-    return helpRequest;
+    return withETag(helpRequest);
   }
 
   /**
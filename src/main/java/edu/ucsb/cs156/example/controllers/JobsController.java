@@ -6,6 +6,8 @@ import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,14 +15,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
@@ -31,14 +38,38 @@ public class JobsController extends ApiController {
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogStreamService jobLogStreamService;
+
+  @Autowired NdjsonExportService ndjsonExportService;
+
   @Autowired ObjectMapper mapper;
 
   @Operation(summary = "List all jobs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public ResponseEntity<Iterable<Job>> allJobs(
+      @Parameter(name = "after", description = "id of the last job already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(name = "limit", description = "maximum number of jobs to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        jobsRepository::findAll,
+        jobsRepository::findByIdGreaterThanOrderByIdAsc,
+        Job::getId);
+  }
+
+  @Operation(summary = "Export all jobs as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportJobs() {
+    StreamingResponseBody body =
+        out -> ndjsonExportService.export(jobsRepository::streamAllByOrderByIdAsc, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   @Operation(summary = "Delete all job records")
@@ -84,11 +115,46 @@ public class JobsController extends ApiController {
     return jobService.runAsJob(testJob);
   }
 
-  @Operation(summary = "Get long job logs")
+  @Operation(summary = "Cancel a pending or running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public Job cancelJob(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    Job job =
+        jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+
+    return jobService.cancelJob(job);
+  }
+
+  @Operation(summary = "Get long job logs, or a range or the tail of them")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public String getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "offset", description = "first line to return, counting from 0")
+          @RequestParam(required = false)
+          Integer offset,
+      @Parameter(name = "limit", description = "maximum number of lines to return")
+          @RequestParam(required = false)
+          Integer limit,
+      @Parameter(name = "tail", description = "return only the last N lines (overrides offset)")
+          @RequestParam(required = false)
+          Integer tail) {
+
+    return jobService.getJobLogs(id, offset, limit, tail);
+  }
 
-    return jobService.getJobLogs(id);
+  @Operation(summary = "Stream new job log lines and status changes as server-sent events")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/logs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "Last-Event-ID", description = "last line number already received")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          Integer lastEventId) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    return jobLogStreamService.subscribe(id, lastEventId != null ? lastEventId : -1);
   }
 }
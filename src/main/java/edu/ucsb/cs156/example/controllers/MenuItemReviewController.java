@@ -1,17 +1,33 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewSearchRepository.Cursor;
+import edu.ucsb.cs156.example.services.MenuItemRatingStatsService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for MenuItemReview */
 @Tag(name = "MenuItemReview")
@@ -30,17 +47,185 @@ public class MenuItemReviewController extends ApiController {
 
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired NdjsonExportService ndjsonExportService;
+
+  @Autowired MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+
+  @Autowired MenuItemRatingStatsService menuItemRatingStatsService;
+
   /**
    * List all menu item reviews
    *
+   * @param after id of the last menu item review already seen; pages start after it
+   * @param limit maximum number of menu item reviews to return
    * @return an iterable of MenuItemReview
    */
   @Operation(summary = "List all menu item reviews")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<MenuItemReview> allMenuItemReviews() {
-    Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-    return reviews;
+  public ResponseEntity<Iterable<MenuItemReview>> allMenuItemReviews(
+      @Parameter(
+              name = "after",
+              description = "id of the last menu item review already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of menu item reviews to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        menuItemReviewRepository::findAll,
+        menuItemReviewRepository::findByIdGreaterThanOrderByIdAsc,
+        MenuItemReview::getId);
+  }
+
+  /**
+   * Search menu item reviews. Every filter is optional; the results match all the filters given.
+   *
+   * @param itemId only reviews of this menu item
+   * @param reviewerEmail only reviews by this reviewer
+   * @param reviewedFrom only reviews dated at or after this time
+   * @param reviewedTo only reviews dated before this time
+   * @param minStars only reviews with at least this many stars
+   * @param after cursor from the previous page; pages start after it
+   * @param limit maximum number of menu item reviews to return
+   * @return the matching menu item reviews, in date order when searching by item and in id order
+   *     otherwise
+   */
+  @Operation(summary = "Search menu item reviews by item, reviewer, date and stars")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/search")
+  public ResponseEntity<Iterable<MenuItemReview>> searchMenuItemReviews(
+      @Parameter(name = "itemId") @RequestParam(required = false) Long itemId,
+      @Parameter(name = "reviewerEmail") @RequestParam(required = false) String reviewerEmail,
+      @Parameter(
+              name = "reviewedFrom",
+              description =
+                  "earliest dateReviewed, inclusive (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime reviewedFrom,
+      @Parameter(
+              name = "reviewedTo",
+              description =
+                  "latest dateReviewed, exclusive (in iso format, e.g. YYYY-mm-ddTHH:MM:SS)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime reviewedTo,
+      @Parameter(name = "minStars") @RequestParam(required = false) Integer minStars,
+      @Parameter(
+              name = "after",
+              description =
+                  "cursor from the X-Next-Cursor header of the previous page (keyset paging)")
+          @RequestParam(required = false)
+          String after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of menu item reviews to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    boolean byDate = itemId != null;
+    return keysetPage(
+        after,
+        limit,
+        null,
+        () ->
+            menuItemReviewRepository.findFiltered(
+                itemId, reviewerEmail, reviewedFrom, reviewedTo, minStars, null, Limit.unlimited()),
+        (cursor, page) ->
+            menuItemReviewRepository.findFiltered(
+                itemId,
+                reviewerEmail,
+                reviewedFrom,
+                reviewedTo,
+                minStars,
+                cursor == null ? null : parseSearchCursor(cursor, byDate),
+                page),
+        review -> searchCursorOf(review, byDate));
+  }
+
+  /**
+   * Writes the cursor of a search result: its id, or when searching by item its dateReviewed (empty
+   * if it has none) and id joined by an underscore, which needs no escaping in a URL.
+   */
+  static String searchCursorOf(MenuItemReview review, boolean byDate) {
+    String id = Long.toString(review.getId());
+    return byDate ? Objects.toString(review.getDateReviewed(), "") + "_" + id : id;
+  }
+
+  /** Reads a cursor written by {@link #searchCursorOf(MenuItemReview, boolean)}. */
+  static Cursor parseSearchCursor(String cursor, boolean byDate) {
+    try {
+      if (!byDate) {
+        return new Cursor(null, Long.parseLong(cursor));
+      }
+      int split = cursor.lastIndexOf('_');
+      if (split < 0) {
+        throw new IllegalArgumentException("Malformed cursor: " + cursor);
+      }
+      String date = cursor.substring(0, split);
+      return new Cursor(
+          date.isEmpty() ? null : LocalDateTime.parse(date),
+          Long.parseLong(cursor.substring(split + 1)));
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor: " + cursor);
+    }
+  }
+
+  /**
+   * Export all menu item reviews as newline-delimited JSON, streamed straight from the database
+   *
+   * @return a streaming response with one menu item review per line
+   */
+  @Operation(summary = "Export all menu item reviews as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportMenuItemReviews() {
+    StreamingResponseBody body =
+        out -> ndjsonExportService.export(menuItemReviewRepository::streamAllByOrderByIdAsc, out);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Get the aggregate rating of a menu item
+   *
+   * @param itemId the id of the menu item
+   * @return the review count, star histogram and average rating of the item
+   */
+  @Operation(summary = "Get the aggregate rating of a menu item")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/stats")
+  public MenuItemRatingStats getStats(@Parameter(name = "itemId") @RequestParam long itemId) {
+    return menuItemRatingStatsRepository
+        .findById(itemId)
+        .orElseGet(() -> MenuItemRatingStats.empty(itemId));
+  }
+
+  /**
+   * Get the aggregate ratings of several menu items
+   *
+   * @param itemIds the ids of the menu items
+   * @return the stats of each distinct item, in the order requested
+   */
+  @Operation(summary = "Get the aggregate ratings of several menu items")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/stats/bulk")
+  public List<MenuItemRatingStats> getBulkStats(
+      @Parameter(name = "itemIds", description = "comma separated ids of the menu items")
+          @RequestParam
+          List<Long> itemIds) {
+    Map<Long, MenuItemRatingStats> found =
+        StreamSupport.stream(
+                menuItemRatingStatsRepository.findAllById(itemIds).spliterator(), false)
+            .collect(Collectors.toMap(MenuItemRatingStats::getItemId, Function.identity()));
+    return itemIds.stream()
+        .distinct()
+        .map(id -> found.getOrDefault(id, MenuItemRatingStats.empty(id)))
+        .toList();
   }
 
   /**
@@ -52,13 +237,13 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Get a single menu item review")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public MenuItemReview getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<MenuItemReview> getById(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview review =
         menuItemReviewRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-    return review;
+    return withETag(review);
   }
 
   /**
@@ -74,6 +259,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Create a new menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public MenuItemReview postMenuItemReview(
       @Parameter(name = "itemId") @RequestParam long itemId,
       @Parameter(name = "reviewerEmail") @RequestParam String reviewerEmail,
@@ -102,6 +288,7 @@ public class MenuItemReviewController extends ApiController {
     review.setComments(comments);
 
     MenuItemReview savedReview = menuItemReviewRepository.save(review);
+    menuItemRatingStatsService.reviewAdded(itemId, stars);
 
     return savedReview;
   }
@@ -116,6 +303,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Update a single menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public MenuItemReview updateMenuItemReview(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody MenuItemReview incoming) {
 
@@ -128,6 +316,9 @@ public class MenuItemReviewController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
+    menuItemRatingStatsService.reviewChanged(
+        review.getItemId(), review.getStars(), incoming.getItemId(), incoming.getStars());
+
     review.setItemId(incoming.getItemId());
     review.setReviewerEmail(incoming.getReviewerEmail());
     review.setStars(incoming.getStars());
@@ -148,6 +339,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Delete a menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteMenuItemReview(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview review =
         menuItemReviewRepository
@@ -155,6 +347,7 @@ public class MenuItemReviewController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
     menuItemReviewRepository.delete(review);
+    menuItemRatingStatsService.reviewRemoved(review.getItemId(), review.getStars());
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
 }
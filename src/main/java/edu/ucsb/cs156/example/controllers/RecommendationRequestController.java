@@ -8,10 +8,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,15 +40,105 @@ public class RecommendationRequestController extends ApiController {
   /**
    * List all Recommendation Requests
    *
+   * @param after id of the last recommendation request already seen; pages start after it
+   * @param limit maximum number of recommendation requests to return
    * @return an iterable of Recommendation Requests
    */
   @Operation(summary = "List all recommendation requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<RecommendationRequest> allRecommendationRequests() {
-    Iterable<RecommendationRequest> recommendationRequests =
-        recommendationRequestRepository.findAll();
-    return recommendationRequests;
+  public ResponseEntity<Iterable<RecommendationRequest>> allRecommendationRequests(
+      @Parameter(
+              name = "after",
+              description = "id of the last recommendation request already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of recommendation requests to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        recommendationRequestRepository::findAll,
+        recommendationRequestRepository::findByIdGreaterThanOrderByIdAsc,
+        RecommendationRequest::getId);
+  }
+
+  /**
+   * List a professor's open recommendation requests, soonest deadline first
+   *
+   * <p>Pages are keyed on (dateNeeded, id): the {@value ApiController#NEXT_CURSOR_HEADER} header
+   * holds the dateNeeded of the last request, in microseconds since the epoch, and its id,
+   * separated by a comma, and is passed back as {@code after}. Unlike an ISO date with an offset,
+   * it needs no escaping in a URL.
+   *
+   * @param professorEmail email of the professor
+   * @param before only requests needed before this time
+   * @param after cursor of the last request already seen; pages start after it
+   * @param limit maximum number of recommendation requests to return
+   * @return the open recommendation requests, in dateNeeded order
+   */
+  @Operation(summary = "List a professor's open recommendation requests by deadline")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/pending")
+  public ResponseEntity<Iterable<RecommendationRequest>> pendingRecommendationRequests(
+      @Parameter(name = "professorEmail") @RequestParam String professorEmail,
+      @Parameter(
+              name = "before",
+              description = "only requests needed before this time (in iso format)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime before,
+      @Parameter(
+              name = "after",
+              description =
+                  "cursor from the X-Next-Cursor header of the previous page (keyset paging)")
+          @RequestParam(required = false)
+          String after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of recommendation requests to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        null,
+        () -> findPending(professorEmail, before, null, Limit.unlimited()),
+        (cursor, page) -> findPending(professorEmail, before, cursor, page),
+        request ->
+            ChronoUnit.MICROS.between(Instant.EPOCH, request.getDateNeeded().toInstant())
+                + ","
+                + request.getId());
+  }
+
+  private List<RecommendationRequest> findPending(
+      String professorEmail, ZonedDateTime before, String cursor, Limit page) {
+    if (cursor == null) {
+      return before == null
+          ? recommendationRequestRepository.findPending(professorEmail, page)
+          : recommendationRequestRepository.findPendingNeededBefore(professorEmail, before, page);
+    }
+    String[] parts = cursor.split(",", -1);
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Malformed cursor: " + cursor);
+    }
+    ZonedDateTime dateNeeded;
+    long id;
+    try {
+      dateNeeded =
+          Instant.EPOCH.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS).atZone(ZoneOffset.UTC);
+      id = Long.parseLong(parts[1]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed cursor: " + cursor);
+    }
+    return before == null
+        ? recommendationRequestRepository.findPendingAfter(professorEmail, dateNeeded, id, page)
+        : recommendationRequestRepository.findPendingNeededBeforeAfter(
+            professorEmail, before, dateNeeded, id, page);
   }
 
   /**
@@ -103,13 +199,14 @@ public class RecommendationRequestController extends ApiController {
   @Operation(summary = "Get a single recommendation request")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public RecommendationRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<RecommendationRequest> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     RecommendationRequest recommendationRequest =
         recommendationRequestRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
-    return recommendationRequest;
+    return withETag(recommendationRequest);
   }
 
   /**
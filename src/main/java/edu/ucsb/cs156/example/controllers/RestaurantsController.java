@@ -3,11 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.search.TypeaheadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,17 +30,39 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired TypeaheadService typeaheadService;
+
+  @Value("${app.typeahead.maxLimit:50}")
+  private int maxSuggestions;
+
   /**
    * This method returns a list of all restaurants.
    *
+   * @param after id of the last restaurant already seen; pages start after it
+   * @param limit maximum number of restaurants to return
    * @return a list of all restaurants
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
-    Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-    return restaurants;
+  public ResponseEntity<Iterable<Restaurant>> allRestaurants(
+      @Parameter(
+              name = "after",
+              description = "id of the last restaurant already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of restaurants to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        restaurantRepository::findAll,
+        restaurantRepository::findByIdGreaterThanOrderByIdAsc,
+        Restaurant::getId);
   }
 
   /**
@@ -48,13 +74,33 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Restaurant> getById(@Parameter(name = "id") @RequestParam Long id) {
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-    return restaurant;
+    return withETag(restaurant);
+  }
+
+  /**
+   * This method suggests restaurants for a search box, from an in-memory index.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of restaurants to return, at most app.typeahead.maxLimit
+   * @return up to limit restaurants whose name, or a word in it, starts with the prefix
+   */
+  @Operation(summary = "Suggest restaurants whose name starts with a prefix")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/suggest")
+  public List<Restaurant> suggestRestaurants(
+      @Parameter(name = "prefix", description = "the text typed so far") @RequestParam
+          String prefix,
+      @Parameter(name = "limit", description = "maximum number of suggestions to return")
+          @RequestParam(defaultValue = "10")
+          int limit) {
+    return typeaheadService.suggestRestaurants(
+        prefix, Math.max(1, Math.min(limit, maxSuggestions)));
   }
 
   /**
@@ -76,6 +122,7 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(description);
 
     Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+    typeaheadService.refreshRestaurants();
     return savedrestaurant;
   }
 
@@ -95,6 +142,7 @@ public class RestaurantsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
     restaurantRepository.delete(restaurant);
+    typeaheadService.refreshRestaurants();
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
@@ -120,6 +168,7 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(incoming.getDescription());
 
     restaurantRepository.save(restaurant);
+    typeaheadService.refreshRestaurants();
 
     return restaurant;
   }
@@ -9,9 +9,13 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,22 +30,101 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
 @RestController
+@CacheConfig(cacheNames = {UCSBDateRepository.ALL_CACHE, UCSBDateRepository.QUARTER_CACHE})
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+  /** Most quarters one range request may span (ten years). */
+  static final int MAX_QUARTERS = 40;
+
   @Autowired UCSBDateRepository ucsbDateRepository;
 
   /**
    * List all UCSB dates
    *
+   * @param after id of the last date already seen; pages start after it
+   * @param limit maximum number of dates to return
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
-    Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-    return dates;
+  public ResponseEntity<Iterable<UCSBDate>> allUCSBDates(
+      @Parameter(name = "after", description = "id of the last date already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(name = "limit", description = "maximum number of dates to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        ucsbDateRepository::findAll,
+        ucsbDateRepository::findByIdGreaterThanOrderByIdAsc,
+        UCSBDate::getId);
+  }
+
+  /**
+   * List the dates of one quarter
+   *
+   * @param qyyyyq the quarter in the format YYYYQ
+   * @return the dates of the quarter
+   */
+  @Operation(summary = "List the dates of one quarter")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/quarter")
+  public ResponseEntity<Iterable<UCSBDate>> datesForQuarter(
+      @Parameter(name = "qyyyyq", description = "quarter in the format YYYYQ, e.g. 20241")
+          @RequestParam
+          String qyyyyq) {
+    checkQuarter(qyyyyq);
+    Iterable<UCSBDate> dates = ucsbDateRepository.findAllByQuarterYYYYQ(qyyyyq);
+    return ResponseEntity.ok().eTag(eTagOf(dates)).body(dates);
+  }
+
+  /**
+   * List the dates of a range of quarters. Each quarter is looked up (and cached) on its own.
+   *
+   * @param from the first quarter in the format YYYYQ
+   * @param to the last quarter in the format YYYYQ, inclusive
+   * @return the dates of every quarter in the range, in quarter order
+   */
+  @Operation(summary = "List the dates of a range of quarters")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/quarters")
+  public ResponseEntity<Iterable<UCSBDate>> datesForQuarters(
+      @Parameter(name = "from", description = "first quarter in the format YYYYQ") @RequestParam
+          String from,
+      @Parameter(name = "to", description = "last quarter in the format YYYYQ, inclusive")
+          @RequestParam
+          String to) {
+    checkQuarter(from);
+    checkQuarter(to);
+    if (quarterIndex(to) - quarterIndex(from) >= MAX_QUARTERS) {
+      throw new IllegalArgumentException(
+          "A range may span at most %d quarters".formatted(MAX_QUARTERS));
+    }
+    List<UCSBDate> dates = new ArrayList<>();
+    for (int q = Integer.parseInt(from); q <= Integer.parseInt(to); q = nextQuarter(q)) {
+      ucsbDateRepository.findAllByQuarterYYYYQ(String.valueOf(q)).forEach(dates::add);
+    }
+    return ResponseEntity.ok().eTag(eTagOf(dates)).body(dates);
+  }
+
+  private static void checkQuarter(String qyyyyq) {
+    if (!qyyyyq.matches("\\d{4}[1-4]")) {
+      throw new IllegalArgumentException("Quarter must be in the format YYYYQ, with Q from 1 to 4");
+    }
+  }
+
+  private static int quarterIndex(String qyyyyq) {
+    int q = Integer.parseInt(qyyyyq);
+    return (q / 10) * 4 + q % 10;
+  }
+
+  private static int nextQuarter(int qyyyyq) {
+    return qyyyyq % 10 == 4 ? qyyyyq + 7 : qyyyyq + 1;
   }
 
   /**
@@ -53,13 +136,13 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDate> getById(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    return ucsbDate;
+    return withETag(ucsbDate);
   }
 
   /**
@@ -72,6 +155,7 @@ public class UCSBDatesController extends ApiController {
    */
   @Operation(summary = "Create a new date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PostMapping("/post")
   public UCSBDate postUCSBDate(
       @Parameter(name = "quarterYYYYQ") @RequestParam String quarterYYYYQ,
@@ -108,6 +192,7 @@ public class UCSBDatesController extends ApiController {
    */
   @Operation(summary = "Delete a UCSBDate")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @DeleteMapping("")
   public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
@@ -128,6 +213,7 @@ public class UCSBDatesController extends ApiController {
    */
   @Operation(summary = "Update a single date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PutMapping("")
   public UCSBDate updateUCSBDate(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid UCSBDate incoming) {
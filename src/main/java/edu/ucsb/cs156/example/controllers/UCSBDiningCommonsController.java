@@ -3,12 +3,17 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,22 +28,67 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
+@CacheConfig(cacheNames = UCSBDiningCommonsRepository.ALL_CACHE)
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired DiningCommonsLocator diningCommonsLocator;
+
+  @Value("${app.diningCommons.nearest.maxK:20}")
+  private int maxNearest;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
+   * @param after code of the last commons already seen; pages start after it
+   * @param limit maximum number of commons to return
    * @return a list of all ucsbdiningcommons
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-    return commons;
+  public ResponseEntity<Iterable<UCSBDiningCommons>> allCommonss(
+      @Parameter(
+              name = "after",
+              description = "code of the last commons already seen (keyset paging)")
+          @RequestParam(required = false)
+          String after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of commons to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        "",
+        ucsbDiningCommonsRepository::findAll,
+        ucsbDiningCommonsRepository::findByCodeGreaterThanOrderByCodeAsc,
+        UCSBDiningCommons::getCode);
+  }
+
+  /**
+   * This method returns the dining commons nearest to a point, nearest first, with their distances.
+   * Commons without a location are left out. A k below 1, or a point outside [-90, 90] by [-180,
+   * 180], is answered with 400.
+   *
+   * @param lat latitude of the point, in degrees
+   * @param lon longitude of the point, in degrees
+   * @param k maximum number of commons to return, at most app.diningCommons.nearest.maxK
+   * @return up to k commons with their distances in kilometers
+   */
+  @Operation(summary = "List the dining commons nearest to a point")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/nearest")
+  public List<DiningCommonsLocator.Nearby> nearestCommons(
+      @Parameter(name = "lat", description = "latitude, in degrees") @RequestParam double lat,
+      @Parameter(name = "lon", description = "longitude, in degrees") @RequestParam double lon,
+      @Parameter(name = "k", description = "maximum number of commons to return")
+          @RequestParam(defaultValue = "3")
+          int k) {
+    return diningCommonsLocator.nearest(lat, lon, Math.min(k, maxNearest));
   }
 
   /**
@@ -50,13 +100,14 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public ResponseEntity<UCSBDiningCommons> getById(
+      @Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-    return commons;
+    return withETag(commons);
   }
 
   /**
@@ -73,6 +124,7 @@ public class UCSBDiningCommonsController extends ApiController {
    */
   @Operation(summary = "Create a new commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PostMapping("/post")
   public UCSBDiningCommons postCommons(
       @Parameter(name = "code") @RequestParam String code,
@@ -93,6 +145,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    diningCommonsLocator.refresh();
 
     return savedCommons;
   }
@@ -105,6 +158,7 @@ public class UCSBDiningCommonsController extends ApiController {
    */
   @Operation(summary = "Delete a UCSBDiningCommons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @DeleteMapping("")
   public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
@@ -113,6 +167,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    diningCommonsLocator.refresh();
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -125,6 +180,7 @@ public class UCSBDiningCommonsController extends ApiController {
    */
   @Operation(summary = "Update a single commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PutMapping("")
   public UCSBDiningCommons updateCommons(
       @Parameter(name = "code") @RequestParam String code,
@@ -143,6 +199,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(incoming.getLongitude());
 
     ucsbDiningCommonsRepository.save(commons);
+    diningCommonsLocator.refresh();
 
     return commons;
   }
@@ -8,8 +8,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,6 +31,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "UCSBDiningCommonsMenuItem")
 @RequestMapping("/api/UCSBDiningCommonsMenuItem")
 @RestController
+@CacheConfig(cacheNames = UCSBDiningCommonsMenuItemRepository.COMMONS_CACHE)
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
@@ -31,15 +39,57 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   /**
    * List all UCSB Dining Commons Menu Items
    *
+   * @param after id of the last menu item already seen; pages start after it
+   * @param limit maximum number of menu items to return
    * @return an iterable of UCSBDiningCommonsMenuItem
    */
   @Operation(summary = "List all ucsb Dining Commons Menu Items")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItem() {
-    Iterable<UCSBDiningCommonsMenuItem> ucsbDiningCommonsMenuItem =
-        ucsbDiningCommonsMenuItemRepository.findAll();
-    return ucsbDiningCommonsMenuItem;
+  public ResponseEntity<Iterable<UCSBDiningCommonsMenuItem>> allUCSBDiningCommonsMenuItem(
+      @Parameter(
+              name = "after",
+              description = "id of the last menu item already seen (keyset paging)")
+          @RequestParam(required = false)
+          Long after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of menu items to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        ucsbDiningCommonsMenuItemRepository::findAll,
+        ucsbDiningCommonsMenuItemRepository::findByIdGreaterThanOrderByIdAsc,
+        UCSBDiningCommonsMenuItem::getId);
+  }
+
+  /**
+   * List the menu items of one dining commons, grouped by station. Stations are in alphabetical
+   * order, and items without a station are listed first, under the empty string. The groups are
+   * sorted here rather than by the query, since databases differ in where they sort null stations.
+   *
+   * @param code the dining commons code
+   * @return a map from station to the menu items served there, ordered by name
+   */
+  @Operation(summary = "List the menu items of one dining commons, grouped by station")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/bycommons")
+  public ResponseEntity<Map<String, List<UCSBDiningCommonsMenuItem>>> menuItemsByCommons(
+      @Parameter(name = "code") @RequestParam String code) {
+    List<UCSBDiningCommonsMenuItem> items =
+        ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAscIdAsc(
+            code);
+    Map<String, List<UCSBDiningCommonsMenuItem>> byStation =
+        items.stream()
+            .collect(
+                Collectors.groupingBy(
+                    item -> Objects.toString(item.getStation(), ""),
+                    TreeMap::new,
+                    Collectors.toList()));
+    return ResponseEntity.ok().eTag(eTagOf(items)).body(byStation);
   }
 
   /**
@@ -52,6 +102,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
    */
   @Operation(summary = "Create a new UCSB Dining Commons Menu Item")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PostMapping("/post")
   public UCSBDiningCommonsMenuItem postUCSBDiningCommonsMenuItem(
       @Parameter(name = "diningCommonsCode") @RequestParam String diningCommonsCode,
@@ -83,13 +134,14 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "Get a single UCSB Dining Common Menu Item")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommonsMenuItem getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDiningCommonsMenuItem> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
-    return ucsbDiningCommonsMenuItem;
+    return withETag(ucsbDiningCommonsMenuItem);
   }
 
   /**
@@ -101,6 +153,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
    */
   @Operation(summary = "Update a single ucsbDiningCommonsMenuItem")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PutMapping("")
   public UCSBDiningCommonsMenuItem updateUCSBDiningCommonsMenuItem(
       @Parameter(name = "id") @RequestParam Long id,
@@ -128,6 +181,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
    */
   @Operation(summary = "Delete a UCSBDiningCommonsMenuItem")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @DeleteMapping("")
   public Object deleteUCSBDiningCommonsMenuItem(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem =
@@ -3,12 +3,17 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.search.TypeaheadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,22 +28,65 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "UCSBOrganization")
 @RequestMapping("/api/ucsborganization")
 @RestController
+@CacheConfig(cacheNames = UCSBOrganizationRepository.ALL_CACHE)
 @Slf4j
 public class UCSBOrganizationController extends ApiController {
 
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired TypeaheadService typeaheadService;
+
+  @Value("${app.typeahead.maxLimit:50}")
+  private int maxSuggestions;
+
   /**
    * This method returns a list of all UCSB organizations.
    *
+   * @param after orgCode of the last organization already seen; pages start after it
+   * @param limit maximum number of organizations to return
    * @return a list of all ucsb organizations
    */
   @Operation(summary = "List all ucsb organizations")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBOrganization> allUCSBOrganizations() {
-    Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-    return organizations;
+  public ResponseEntity<Iterable<UCSBOrganization>> allUCSBOrganizations(
+      @Parameter(
+              name = "after",
+              description = "orgCode of the last organization already seen (keyset paging)")
+          @RequestParam(required = false)
+          String after,
+      @Parameter(
+              name = "limit",
+              description = "maximum number of organizations to return (keyset paging)")
+          @RequestParam(required = false)
+          Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        "",
+        ucsbOrganizationRepository::findAll,
+        ucsbOrganizationRepository::findByOrgCodeGreaterThanOrderByOrgCodeAsc,
+        UCSBOrganization::getOrgCode);
+  }
+
+  /**
+   * This method suggests organizations for a search box, from an in-memory index.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of organizations to return, at most app.typeahead.maxLimit
+   * @return up to limit organizations whose name, or a word in it, starts with the prefix
+   */
+  @Operation(summary = "Suggest organizations whose name starts with a prefix")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/suggest")
+  public List<UCSBOrganization> suggestOrganizations(
+      @Parameter(name = "prefix", description = "the text typed so far") @RequestParam
+          String prefix,
+      @Parameter(name = "limit", description = "maximum number of suggestions to return")
+          @RequestParam(defaultValue = "10")
+          int limit) {
+    return typeaheadService.suggestOrganizations(
+        prefix, Math.max(1, Math.min(limit, maxSuggestions)));
   }
 
   /**
@@ -53,6 +101,7 @@ public class UCSBOrganizationController extends ApiController {
    */
   @Operation(summary = "Create a new ucsb organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PostMapping("/post")
   public UCSBOrganization postOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
@@ -67,6 +116,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(inactive);
 
     UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+    typeaheadService.refreshOrganizations();
 
     return savedOrganization;
   }
@@ -80,13 +130,14 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBOrganization getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
+  public ResponseEntity<UCSBOrganization> getById(
+      @Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
         ucsbOrganizationRepository
             .findById(orgCode)
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
-    return organization;
+    return withETag(organization);
   }
 
   /**
@@ -98,6 +149,7 @@ public class UCSBOrganizationController extends ApiController {
    */
   @Operation(summary = "Update a single organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @PutMapping("")
   public UCSBOrganization updateOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
@@ -113,6 +165,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(incoming.getInactive());
 
     ucsbOrganizationRepository.save(organization);
+    typeaheadService.refreshOrganizations();
 
     return organization;
   }
@@ -125,6 +178,7 @@ public class UCSBOrganizationController extends ApiController {
    */
   @Operation(summary = "Delete a UCSBOrganization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @EvictCachesAroundWrite
   @DeleteMapping("")
   public Object deleteOrganization(@Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
@@ -133,6 +187,7 @@ public class UCSBOrganizationController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
     ucsbOrganizationRepository.delete(organization);
+    typeaheadService.refreshOrganizations();
     return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
   }
 }
@@ -1,9 +1,11 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,7 +18,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "articles")
-public class Article {
+public class Article implements Versioned {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
@@ -26,4 +28,11 @@ public class Article {
   private String explanation;
   private String email;
   private LocalDateTime dateAdded;
+
+  @JsonIgnore @Version private Long version;
+
+  @Override
+  public Object primaryKey() {
+    return id;
+  }
 }
@@ -1,9 +1,11 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,7 +20,7 @@ import lombok.NoArgsConstructor;
 @Entity(
     name =
         "HelpRequests") // modified from "HelpRequests" to "help_requests" on tues oct 28 12:44 pm
-public class HelpRequest {
+public class HelpRequest implements Versioned {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
@@ -29,4 +31,13 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
+  private String claimedBy;
+  private LocalDateTime claimedAt;
+
+  @JsonIgnore @Version private Long version;
+
+  @Override
+  public Object primaryKey() {
+    return id;
+  }
 }
@@ -35,4 +35,27 @@ public class Job {
       length = 1048576) // needed for long strings, i.e. log entries longer than 255
   // characters
   private String log;
+
+  // JSON form of the JobContextConsumer, so a queued job can be run by any instance, or again
+  // after a restart
+  @JsonIgnore
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String payload;
+
+  private String claimedBy;
+  private ZonedDateTime claimedAt;
+
+  // written only by JobsRepository.touchHeartbeat, so saving a running job never rolls it back
+  @Column(insertable = false, updatable = false)
+  private ZonedDateTime heartbeatAt;
+
+  private int attempts;
+
+  private Integer progressPercent;
+  private String currentStep;
+  private Long itemsProcessed;
+
+  // written only by JobsRepository.requestCancel; the running job learns about it via JobContext
+  @Column(insertable = false, updatable = false)
+  private boolean cancelRequested;
 }
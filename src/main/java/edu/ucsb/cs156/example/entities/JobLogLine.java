@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of a Job's log.
+ *
+ * <p>Log lines are append-only. The id comes from a pooled sequence (rather than an identity
+ * column) so that Hibernate can batch the inserts.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_lines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_log_lines_seq")
+  @SequenceGenerator(
+      name = "job_log_lines_seq",
+      sequenceName = "job_log_lines_seq",
+      allocationSize = 50)
+  private long id;
+
+  private long jobId;
+  private int lineNumber;
+  private ZonedDateTime loggedAt;
+
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String message;
+}
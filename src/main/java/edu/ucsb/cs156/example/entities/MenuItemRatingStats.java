@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the aggregate rating of one menu item.
+ *
+ * <p>There is one row per itemId that has reviews. The row is kept in step with the menuitemreviews
+ * table as reviews are created, updated and deleted, so an item's rating can be read without
+ * scanning its reviews.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menu_item_rating_stats")
+public class MenuItemRatingStats {
+  @Id private long itemId;
+
+  private long reviewCount;
+  private long starsSum;
+
+  @JsonIgnore private long stars0;
+  @JsonIgnore private long stars1;
+  @JsonIgnore private long stars2;
+  @JsonIgnore private long stars3;
+  @JsonIgnore private long stars4;
+  @JsonIgnore private long stars5;
+
+  @JsonIgnore @Version private Long version;
+
+  /**
+   * This method returns empty stats for an item with no reviews.
+   *
+   * @param itemId the id of the menu item
+   * @return stats with every count set to zero
+   */
+  public static MenuItemRatingStats empty(long itemId) {
+    return MenuItemRatingStats.builder().itemId(itemId).build();
+  }
+
+  /**
+   * This method returns the number of reviews giving each star rating.
+   *
+   * @return six counts, for 0 through 5 stars
+   */
+  public long[] getHistogram() {
+    return new long[] {stars0, stars1, stars2, stars3, stars4, stars5};
+  }
+
+  /**
+   * This method returns the mean star rating.
+   *
+   * @return the mean, or null if the item has no reviews
+   */
+  public Double getAverage() {
+    return reviewCount == 0 ? null : (double) starsSum / reviewCount;
+  }
+
+  /**
+   * This method adds (delta 1) or removes (delta -1) one review with the given star rating.
+   *
+   * @param stars the star rating of the review, 0 through 5
+   * @param delta 1 to add the review, -1 to remove it
+   */
+  public void adjust(int stars, int delta) {
+    reviewCount += delta;
+    starsSum += (long) stars * delta;
+    switch (stars) {
+      case 0 -> stars0 += delta;
+      case 1 -> stars1 += delta;
+      case 2 -> stars2 += delta;
+      case 3 -> stars3 += delta;
+      case 4 -> stars4 += delta;
+      case 5 -> stars5 += delta;
+      default -> throw new IllegalArgumentException("Stars must be between 0 and 5");
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import java.time.ZonedDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,7 +18,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "recommendationrequests")
-public class RecommendationRequest {
+public class RecommendationRequest implements Versioned {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
@@ -27,4 +29,11 @@ public class RecommendationRequest {
   private ZonedDateTime dateRequested;
   private ZonedDateTime dateNeeded;
   private boolean done;
+
+  @JsonIgnore @Version private Long version;
+
+  @Override
+  public Object primaryKey() {
+    return id;
+  }
 }
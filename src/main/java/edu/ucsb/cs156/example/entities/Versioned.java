@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.entities;
+
+/**
+ * This interface is implemented by entities with a JPA {@code @Version} column, whose value changes
+ * every time the entity is updated. It lets controllers compute ETags for them; the version itself
+ * is left out of the JSON, since clients see it through the ETag.
+ */
+public interface Versioned {
+  /**
+   * This method returns the entity's version.
+   *
+   * @return the version, or null if the entity has not been saved yet
+   */
+  Long getVersion();
+
+  /**
+   * This method returns the entity's primary key. Together with the version it identifies one saved
+   * state of the row.
+   *
+   * @return the primary key
+   */
+  Object primaryKey();
+}
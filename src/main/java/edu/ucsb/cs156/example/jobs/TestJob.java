@@ -1,13 +1,20 @@
 package edu.ucsb.cs156.example.jobs;
 
+import com.fasterxml.jackson.annotation.JsonTypeName;
 import edu.ucsb.cs156.example.services.jobs.JobContext;
 import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @Builder
+@Getter
+@Jacksonized
+@JsonTypeName("TestJob")
 public class TestJob implements JobContextConsumer {
+  private static final int STEPS = 10;
 
   private boolean fail;
   private int sleepMs;
@@ -18,7 +25,13 @@ public class TestJob implements JobContextConsumer {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     ctx.log("Hello World! from test job!");
-    Thread.sleep(sleepMs);
+    for (int step = 1; step <= STEPS; step++) {
+      if (ctx.isCancelled()) {
+        return;
+      }
+      Thread.sleep(sleepMs / STEPS);
+      ctx.progress(step * 100 / STEPS, "sleeping", step);
+    }
     if (fail) {
       throw new Exception("Fail!");
     }
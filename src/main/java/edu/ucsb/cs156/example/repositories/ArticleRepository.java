@@ -1,9 +1,47 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Article;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The Articles is a repository for Article entities. */
 @Repository
-public interface ArticleRepository extends CrudRepository<Article, Long> {}
+public interface ArticleRepository extends CrudRepository<Article, Long> {
+  /** The document searched by {@link #searchFullText}, as indexed by ARTICLES_FULLTEXT_IDX. */
+  String FULLTEXT_DOCUMENT =
+      "to_tsvector('english', coalesce(title, '') || ' ' || coalesce(url, '') || ' '"
+          + " || coalesce(explanation, ''))";
+
+  /**
+   * This method returns the next keyset page of Article entities, in ascending id order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit Article entities
+   */
+  List<Article> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method runs a Postgres full-text search over the title, url and explanation of each
+   * article, best match first. The expression matches the ARTICLES_FULLTEXT_IDX index, which only
+   * exists on Postgres, so this method must not be called on other databases.
+   *
+   * @param query a tsquery of words joined by {@code |}, so that an article matching any of them is
+   *     returned
+   * @param limit maximum number of articles to return
+   * @return up to limit matching articles
+   */
+  @Query(
+      value =
+          "select * from articles where "
+              + FULLTEXT_DOCUMENT
+              + " @@ to_tsquery('english', :query)"
+              + " order by ts_rank("
+              + FULLTEXT_DOCUMENT
+              + ", to_tsquery('english', :query)) desc, id limit :limit",
+      nativeQuery = true)
+  List<Article> searchFullText(String query, int limit);
+}
@@ -1,10 +1,80 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-  // Add custom query methods here later if needed
+  /**
+   * This method returns the next keyset page of HelpRequest entities, in ascending id order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit HelpRequest entities
+   */
+  List<HelpRequest> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method returns the queue of unsolved HelpRequest entities, oldest request first.
+   *
+   * @return the unsolved HelpRequest entities, in requestTime order
+   */
+  List<HelpRequest> findBySolvedFalseOrderByRequestTimeAscIdAsc();
+
+  /**
+   * This method claims an unsolved, unclaimed help request for a TA. The check and the update are a
+   * single statement, so two TAs cannot claim the same request.
+   *
+   * @param id id of the help request
+   * @param email email of the TA claiming it
+   * @param now the claim time
+   * @return 1 if the request was claimed, otherwise 0
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update HelpRequests h set h.claimedBy = :email, h.claimedAt = :now, h.version = h.version + 1"
+          + " where h.id = :id and h.solved = false and h.claimedBy is null")
+  int claim(long id, String email, LocalDateTime now);
+
+  /**
+   * This method marks an unsolved help request solved, provided it is unclaimed or claimed by the
+   * same TA.
+   *
+   * @param id id of the help request
+   * @param email email of the TA solving it
+   * @param now the time, recorded as the claim time if the request was unclaimed
+   * @return 1 if the request was solved, otherwise 0
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update HelpRequests h set h.solved = true, h.claimedBy = :email,"
+          + " h.claimedAt = coalesce(h.claimedAt, :now), h.version = h.version + 1"
+          + " where h.id = :id and h.solved = false"
+          + " and (h.claimedBy is null or h.claimedBy = :email)")
+  int solve(long id, String email, LocalDateTime now);
+
+  /**
+   * This method streams every HelpRequest entity in id order, for exports. It must be called inside
+   * a transaction, and the caller must close the stream.
+   *
+   * @return a stream of all HelpRequest entities
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<HelpRequest> streamAllByOrderByIdAsc();
 }
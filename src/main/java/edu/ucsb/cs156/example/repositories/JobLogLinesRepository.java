@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The JobLogLinesRepository is a repository for JobLogLine entities. */
+@Repository
+public interface JobLogLinesRepository extends CrudRepository<JobLogLine, Long> {
+  /**
+   * This method returns every log line of a job, in the order they were logged.
+   *
+   * @param jobId id of the job
+   * @return the job's log lines
+   */
+  List<JobLogLine> findAllByJobIdOrderByLineNumberAsc(long jobId);
+
+  /**
+   * This method returns the log lines of a job after a given line, in the order they were logged.
+   *
+   * @param jobId id of the job
+   * @param lineNumber only lines with a greater line number are returned
+   * @return the job's later log lines
+   */
+  List<JobLogLine> findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(
+      long jobId, int lineNumber);
+
+  /**
+   * This method returns up to limit log lines of a job, starting at a given line.
+   *
+   * @param jobId id of the job
+   * @param lineNumber first line number to return
+   * @param limit maximum number of lines to return
+   * @return the job's log lines, in the order they were logged
+   */
+  List<JobLogLine> findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+      long jobId, int lineNumber, Limit limit);
+
+  /**
+   * This method returns the last lines of a job's log, newest first.
+   *
+   * @param jobId id of the job
+   * @param limit maximum number of lines to return
+   * @return the job's most recent log lines, newest first
+   */
+  List<JobLogLine> findAllByJobIdOrderByLineNumberDesc(long jobId, Limit limit);
+
+  /**
+   * This method checks whether a job has any log lines stored in the job_log_lines table.
+   *
+   * @param jobId id of the job
+   * @return true if at least one line is stored
+   */
+  boolean existsByJobId(long jobId);
+
+  /**
+   * This method returns the highest line number logged so far for a job, so that a job run again
+   * after being requeued can continue numbering after the lines of its earlier attempts.
+   *
+   * @param jobId id of the job
+   * @return the highest line number, or empty if the job has no lines
+   */
+  @Query("select max(l.lineNumber) from job_log_lines l where l.jobId = :jobId")
+  Optional<Integer> findMaxLineNumberByJobId(long jobId);
+}
@@ -1,8 +1,184 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+  /**
+   * This method returns the next keyset page of Job entities, in ascending id order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit Job entities
+   */
+  List<Job> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method streams every Job entity in id order, for exports. It must be called inside a
+   * transaction, and the caller must close the stream.
+   *
+   * @return a stream of all Job entities
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<Job> streamAllByOrderByIdAsc();
+
+  /**
+   * This method locks the oldest jobs with the given status. On Postgres this is FOR UPDATE SKIP
+   * LOCKED, so rows locked by another instance are skipped; the H2 dialect falls back to a plain
+   * FOR UPDATE. It must be called inside a transaction.
+   *
+   * @param status status of the jobs to lock
+   * @param limit maximum number of jobs to lock
+   * @return up to limit locked Job entities, in id order
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+  List<Job> findByStatusOrderByIdAsc(String status, Limit limit);
+
+  /**
+   * This method records that the given jobs are still owned by a live instance.
+   *
+   * @param ids ids of the jobs
+   * @param now the heartbeat time
+   * @return number of jobs updated
+   */
+  @Transactional
+  @Modifying
+  @Query("update jobs j set j.heartbeatAt = :now where j.id in :ids")
+  int touchHeartbeat(Collection<Long> ids, ZonedDateTime now);
+
+  /**
+   * This method puts claimed or running jobs whose owner has stopped sending heartbeats back into
+   * the pending state, so another instance can pick them up. Progress and any cancel request left
+   * over from the stopped attempt are cleared. Bulk updates bypass auditing, so updatedAt is set
+   * here.
+   *
+   * @param cutoff jobs with no heartbeat since this time are requeued
+   * @return number of jobs requeued
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = 'pending',"
+          + " j.updatedAt = cast(current_timestamp as ZonedDateTime),"
+          + " j.claimedBy = null, j.progressPercent = null,"
+          + " j.currentStep = null, j.itemsProcessed = null, j.cancelRequested = false"
+          + " where j.status in ('claimed', 'running')"
+          + " and (j.heartbeatAt is null or j.heartbeatAt < :cutoff)")
+  int requeueStaleJobs(ZonedDateTime cutoff);
+
+  /**
+   * This method cancels a job that has not been claimed yet, and sets its updatedAt, which the bulk
+   * update would otherwise leave unchanged.
+   *
+   * @param id id of the job
+   * @return 1 if the job was pending and is now cancelled, otherwise 0
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.status = 'cancelled',"
+          + " j.updatedAt = cast(current_timestamp as ZonedDateTime)"
+          + " where j.id = :id and j.status = 'pending'")
+  int cancelPendingJob(long id);
+
+  /**
+   * This method flags a claimed or running job for cancellation; the instance running it stops it
+   * at the job's next cancellation check.
+   *
+   * @param id id of the job
+   * @return 1 if the job was claimed or running, otherwise 0
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "update jobs j set j.cancelRequested = true"
+          + " where j.id = :id and j.status in ('claimed', 'running')")
+  int requestCancel(long id);
+
+  /**
+   * This method returns which of the given jobs have been flagged for cancellation.
+   *
+   * @param ids ids of the jobs to check
+   * @return ids of the flagged jobs
+   */
+  @Query("select j.id from jobs j where j.id in :ids and j.cancelRequested = true")
+  List<Long> findCancelRequestedIds(Collection<Long> ids);
+
+  /**
+   * This method returns only the status of a job, without loading its log.
+   *
+   * @param id id of the job
+   * @return the job's status, or empty if there is no such job
+   */
+  @Query("select j.status from jobs j where j.id = :id")
+  Optional<String> findStatusById(long id);
+
+  /**
+   * This method returns the ids of the oldest jobs with the given status that were last updated
+   * before a cutoff, for pruning.
+   *
+   * @param status status of the jobs
+   * @param cutoff only jobs last updated before this time are returned
+   * @param limit maximum number of ids to return
+   * @return up to limit job ids, in ascending order
+   */
+  @Query("select j.id from jobs j where j.status = :status and j.updatedAt < :cutoff order by j.id")
+  List<Long> findIdsByStatusAndUpdatedAtBefore(String status, ZonedDateTime cutoff, Limit limit);
+
+  /**
+   * This method returns the ids of the jobs with the given status, newest first. With a page of
+   * size 1 it finds the id of the job just past a given number of newer jobs.
+   *
+   * @param status status of the jobs
+   * @param pageable page of ids to return
+   * @return job ids, in descending order
+   */
+  @Query("select j.id from jobs j where j.status = :status order by j.id desc")
+  List<Long> findIdsByStatusOrderByIdDesc(String status, Pageable pageable);
+
+  /**
+   * This method returns the ids of the oldest jobs with the given status, up to and including a
+   * given id, for pruning.
+   *
+   * @param status status of the jobs
+   * @param maxId largest id to return
+   * @param limit maximum number of ids to return
+   * @return up to limit job ids, in ascending order
+   */
+  @Query("select j.id from jobs j where j.status = :status and j.id <= :maxId order by j.id")
+  List<Long> findIdsByStatusAndIdAtMost(String status, long maxId, Limit limit);
+
+  /**
+   * This method deletes the given jobs in one statement; their log lines are removed by the
+   * database's cascading foreign key.
+   *
+   * @param ids ids of the jobs
+   * @return number of jobs deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from jobs j where j.id in :ids")
+  int deleteByIds(Collection<Long> ids);
+}
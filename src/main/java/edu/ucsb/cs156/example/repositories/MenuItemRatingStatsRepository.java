@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The MenuItemRatingStatsRepository is a repository for MenuItemRatingStats entities. */
+@Repository
+public interface MenuItemRatingStatsRepository extends CrudRepository<MenuItemRatingStats, Long> {
+  /**
+   * This method returns the stats of one menu item, locking the row until the current transaction
+   * ends so concurrent review writes for the same item are applied one at a time.
+   *
+   * @param itemId the id of the menu item
+   * @return the stats, if the item has any
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemRatingStats> findForUpdateByItemId(long itemId);
+}
@@ -1,9 +1,37 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The MenuItemReviewRepository is a repository for MenuItemReview entities. */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository
+    extends CrudRepository<MenuItemReview, Long>, MenuItemReviewSearchRepository {
+  /**
+   * This method returns the next keyset page of MenuItemReview entities, in ascending id order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit MenuItemReview entities
+   */
+  List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /**
+   * This method streams every MenuItemReview entity in id order, for exports. It must be called
+   * inside a transaction, and the caller must close the stream.
+   *
+   * @return a stream of all MenuItemReview entities
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<MenuItemReview> streamAllByOrderByIdAsc();
+}
@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+
+/**
+ * The MenuItemReviewSearchRepository searches menu item reviews with a query built from only the
+ * filters actually given, so that the planner can pick the index that suits each combination. It is
+ * implemented by MenuItemReviewSearchRepositoryImpl and mixed into MenuItemReviewRepository.
+ */
+public interface MenuItemReviewSearchRepository {
+  /**
+   * The last review of a search page. A search by item is ordered by (dateReviewed, id), following
+   * MENUITEMREVIEWS_ITEM_ID_DATE_REVIEWED_ID_IDX, with undated reviews last; any other search is
+   * ordered by id, and only the id of the cursor is used.
+   *
+   * @param dateReviewed date of the review, or null if it has none
+   * @param id id of the review
+   */
+  record Cursor(LocalDateTime dateReviewed, long id) {}
+
+  /**
+   * This method returns the next keyset page of MenuItemReview entities matching every given
+   * filter. A null filter matches every review.
+   *
+   * @param itemId only reviews of this menu item
+   * @param reviewerEmail only reviews by this reviewer
+   * @param reviewedFrom only reviews dated at or after this time
+   * @param reviewedTo only reviews dated before this time
+   * @param minStars only reviews with at least this many stars
+   * @param after only reviews after this one are returned, or null to start at the beginning
+   * @param limit maximum number of entities to return
+   * @return up to limit matching MenuItemReview entities
+   */
+  List<MenuItemReview> findFiltered(
+      Long itemId,
+      String reviewerEmail,
+      LocalDateTime reviewedFrom,
+      LocalDateTime reviewedTo,
+      Integer minStars,
+      Cursor after,
+      Limit limit);
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.Limit;
+
+/** This is the implementation of MenuItemReviewSearchRepository. */
+public class MenuItemReviewSearchRepositoryImpl implements MenuItemReviewSearchRepository {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<MenuItemReview> findFiltered(
+      Long itemId,
+      String reviewerEmail,
+      LocalDateTime reviewedFrom,
+      LocalDateTime reviewedTo,
+      Integer minStars,
+      Cursor after,
+      Limit limit) {
+    List<String> conditions = new ArrayList<>();
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    if (itemId != null) {
+      conditions.add("r.itemId = :itemId");
+      parameters.put("itemId", itemId);
+    }
+    if (reviewerEmail != null) {
+      conditions.add("r.reviewerEmail = :reviewerEmail");
+      parameters.put("reviewerEmail", reviewerEmail);
+    }
+    if (reviewedFrom != null) {
+      conditions.add("r.dateReviewed >= :reviewedFrom");
+      parameters.put("reviewedFrom", reviewedFrom);
+    }
+    if (reviewedTo != null) {
+      conditions.add("r.dateReviewed < :reviewedTo");
+      parameters.put("reviewedTo", reviewedTo);
+    }
+    if (minStars != null) {
+      conditions.add("r.stars >= :minStars");
+      parameters.put("minStars", minStars);
+    }
+    boolean byDate = itemId != null;
+    if (after != null) {
+      if (!byDate) {
+        conditions.add("r.id > :afterId");
+      } else if (after.dateReviewed() == null) {
+        conditions.add("r.dateReviewed is null and r.id > :afterId");
+      } else {
+        conditions.add(
+            "(r.dateReviewed > :afterDate or (r.dateReviewed = :afterDate and r.id > :afterId)"
+                + " or r.dateReviewed is null)");
+        parameters.put("afterDate", after.dateReviewed());
+      }
+      parameters.put("afterId", after.id());
+    }
+
+    String jpql =
+        "select r from menuitemreviews r"
+            + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+            + (byDate ? " order by r.dateReviewed asc nulls last, r.id asc" : " order by r.id asc");
+    TypedQuery<MenuItemReview> query = entityManager.createQuery(jpql, MenuItemReview.class);
+    parameters.forEach(query::setParameter);
+    if (limit.isLimited()) {
+      query.setMaxResults(limit.max());
+    }
+    return query.getResultList();
+  }
+}
@@ -1,10 +1,94 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The RecommendationRequestRepository is a repository for RecommendationRequest entities */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends CrudRepository<RecommendationRequest, Long> {
+  /**
+   * This method returns the next keyset page of RecommendationRequest entities, in ascending id
+   * order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit RecommendationRequest entities
+   */
+  List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+  /** Selects a professor's open requests; shared by the queries of the pending worklist. */
+  String PENDING =
+      "select r from recommendationrequests r"
+          + " where r.professorEmail = :professorEmail and r.done = false";
+
+  /**
+   * Deadline order of the pending worklist, which RECOMMENDATIONREQUESTS_PROFESSOR_DONE_NEEDED_IDX
+   * follows.
+   */
+  String BY_DEADLINE = " order by r.dateNeeded, r.id";
+
+  /**
+   * Keyset condition of the pending worklist: after the request with the given (dateNeeded, id).
+   */
+  String AFTER_CURSOR =
+      " and (r.dateNeeded > :dateNeeded or (r.dateNeeded = :dateNeeded and r.id > :id))";
+
+  /**
+   * This method returns the first page of a professor's open RecommendationRequest entities with a
+   * deadline, in ascending (dateNeeded, id) order.
+   *
+   * @param professorEmail email of the professor
+   * @param limit maximum number of entities to return
+   * @return up to limit open RecommendationRequest entities
+   */
+  @Query(PENDING + " and r.dateNeeded is not null" + BY_DEADLINE)
+  List<RecommendationRequest> findPending(String professorEmail, Limit limit);
+
+  /**
+   * This method returns the first page of a professor's open RecommendationRequest entities needed
+   * before a given time, in ascending (dateNeeded, id) order.
+   *
+   * @param professorEmail email of the professor
+   * @param before only requests needed before this time
+   * @param limit maximum number of entities to return
+   * @return up to limit open RecommendationRequest entities
+   */
+  @Query(PENDING + " and r.dateNeeded < :before" + BY_DEADLINE)
+  List<RecommendationRequest> findPendingNeededBefore(
+      String professorEmail, ZonedDateTime before, Limit limit);
+
+  /**
+   * This method returns the next keyset page of a professor's open RecommendationRequest entities,
+   * in ascending (dateNeeded, id) order.
+   *
+   * @param professorEmail email of the professor
+   * @param dateNeeded dateNeeded of the last request already seen
+   * @param id id of the last request already seen
+   * @param limit maximum number of entities to return
+   * @return up to limit open RecommendationRequest entities
+   */
+  @Query(PENDING + AFTER_CURSOR + BY_DEADLINE)
+  List<RecommendationRequest> findPendingAfter(
+      String professorEmail, ZonedDateTime dateNeeded, long id, Limit limit);
+
+  /**
+   * This method returns the next keyset page of a professor's open RecommendationRequest entities
+   * needed before a given time, in ascending (dateNeeded, id) order.
+   *
+   * @param professorEmail email of the professor
+   * @param before only requests needed before this time
+   * @param dateNeeded dateNeeded of the last request already seen
+   * @param id id of the last request already seen
+   * @param limit maximum number of entities to return
+   * @return up to limit open RecommendationRequest entities
+   */
+  @Query(PENDING + " and r.dateNeeded < :before" + AFTER_CURSOR + BY_DEADLINE)
+  List<RecommendationRequest> findPendingNeededBeforeAfter(
+      String professorEmail, ZonedDateTime before, ZonedDateTime dateNeeded, long id, Limit limit);
+}
@@ -1,12 +1,36 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import java.util.List;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+  /**
+   * Name of the cache holding the full list of UCSBDate entities; writes in UCSBDatesController
+   * evict it.
+   */
+  String ALL_CACHE = "ucsbDates";
+
+  /**
+   * Name of the cache holding the dates of each quarter; writes in UCSBDatesController evict it.
+   */
+  String QUARTER_CACHE = "ucsbDatesByQuarter";
+
+  /**
+   * This method returns all UCSBDate entities. The list is cached, since it is read far more often
+   * than it changes.
+   *
+   * @return all UCSBDate entities
+   */
+  @Override
+  @Cacheable(ALL_CACHE)
+  Iterable<UCSBDate> findAll();
+
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
@@ -14,5 +38,15 @@ public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
+  @Cacheable(QUARTER_CACHE)
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns the next keyset page of UCSBDate entities, in ascending id order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDate entities
+   */
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
 }
@@ -1,6 +1,9 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import java.util.List;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +12,31 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {}
+    extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
+  /**
+   * Name of the cache holding the menu items of each dining commons; writes in
+   * UCSBDiningCommonsMenuItemController evict it.
+   */
+  String COMMONS_CACHE = "ucsbDiningCommonsMenuItemsByCommons";
+
+  /**
+   * This method returns the menu items of one dining commons, ordered by station and then name. The
+   * list is cached per commons.
+   *
+   * @param diningCommonsCode code of the dining commons
+   * @return the menu items of the dining commons
+   */
+  @Cacheable(COMMONS_CACHE)
+  List<UCSBDiningCommonsMenuItem> findByDiningCommonsCodeOrderByStationAscNameAscIdAsc(
+      String diningCommonsCode);
+
+  /**
+   * This method returns the next keyset page of UCSBDiningCommonsMenuItem entities, in ascending id
+   * order.
+   *
+   * @param id only entities with a greater id are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDiningCommonsMenuItem entities
+   */
+  List<UCSBDiningCommonsMenuItem> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+}
@@ -1,9 +1,46 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import java.util.List;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
+  /**
+   * Name of the cache holding the full list of UCSBDiningCommons entities; writes in
+   * UCSBDiningCommonsController evict it.
+   */
+  String ALL_CACHE = "ucsbDiningCommons";
+
+  /**
+   * This method returns all UCSBDiningCommons entities. The list is cached, since it is read far
+   * more often than it changes.
+   *
+   * @return all UCSBDiningCommons entities
+   */
+  @Override
+  @Cacheable(ALL_CACHE)
+  Iterable<UCSBDiningCommons> findAll();
+
+  /**
+   * This method returns the next keyset page of UCSBDiningCommons entities, in ascending code
+   * order.
+   *
+   * @param code only entities with a greater code are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBDiningCommons entities
+   */
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String code, Limit limit);
+
+  /**
+   * This method returns the UCSBDiningCommons entities that have both a latitude and a longitude.
+   * Unlike {@link #findAll()} it is not cached, so it sees a write as soon as it commits.
+   *
+   * @return the located UCSBDiningCommons entities
+   */
+  List<UCSBDiningCommons> findByLatitudeNotNullAndLongitudeNotNull();
+}
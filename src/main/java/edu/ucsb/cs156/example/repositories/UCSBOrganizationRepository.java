@@ -1,9 +1,46 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import java.util.List;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBOrganizationRepository is a repository for UCSBOrganization entities */
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {}
+public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
+  /**
+   * Name of the cache holding the full list of UCSBOrganization entities; writes in
+   * UCSBOrganizationController evict it.
+   */
+  String ALL_CACHE = "ucsbOrganizations";
+
+  /**
+   * This method returns all UCSBOrganization entities. The list is cached, since it is read far
+   * more often than it changes.
+   *
+   * @return all UCSBOrganization entities
+   */
+  @Override
+  @Cacheable(ALL_CACHE)
+  Iterable<UCSBOrganization> findAll();
+
+  /**
+   * This method returns the next keyset page of UCSBOrganization entities, in ascending orgCode
+   * order.
+   *
+   * @param orgCode only entities with a greater orgCode are returned
+   * @param limit maximum number of entities to return
+   * @return up to limit UCSBOrganization entities
+   */
+  List<UCSBOrganization> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String orgCode, Limit limit);
+
+  /**
+   * This method returns all UCSBOrganization entities in ascending orgCode order. Unlike {@link
+   * #findAll()} it is not cached, so it sees a write as soon as it commits.
+   *
+   * @return all UCSBOrganization entities
+   */
+  List<UCSBOrganization> findAllByOrderByOrgCodeAsc();
+}
@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,4 +17,21 @@ public interface UserRepository extends CrudRepository<User, Long> {
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns a User entity with a given Google account id, e.g. to find a user whose
+   * email address has changed.
+   *
+   * @param googleSub Google account id ("sub" claim) of the user
+   * @return Optional of User (empty if not found)
+   */
+  Optional<User> findByGoogleSub(String googleSub);
+
+  /**
+   * This method returns the email addresses of all users with the admin flag.
+   *
+   * @return the admins' email addresses
+   */
+  @Query("select u.email from users u where u.admin = true and u.email is not null")
+  List<String> findAdminEmails();
 }
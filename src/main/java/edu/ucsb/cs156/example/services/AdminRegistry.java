@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that knows which email addresses belong to admins, so that admin status can be
+ * checked at login without a database query.
+ *
+ * <p>The admins are the emails listed in {@code app.admin.emails} plus the users stored with the
+ * admin flag. They are kept in an immutable set that is rebuilt at startup, every {@code
+ * app.admin.refreshIntervalMs} milliseconds, and whenever {@link #refresh()} is called after a
+ * change. When the set changes an {@link AdminsChangedEvent} is published.
+ */
+@Slf4j
+@Service
+public class AdminRegistry {
+
+  /**
+   * Published when the set of admin emails changes.
+   *
+   * @param admins the new set of admin emails
+   */
+  public record AdminsChangedEvent(Set<String> admins) {}
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.admin.emails}")
+  private List<String> adminEmails = new ArrayList<>();
+
+  private volatile Set<String> configuredAdmins = Set.of();
+
+  private volatile Set<String> admins = Set.of();
+
+  /** This method rebuilds the set of admin emails from the configuration and the database. */
+  @PostConstruct
+  @Scheduled(
+      initialDelayString = "${app.admin.refreshIntervalMs:60000}",
+      fixedDelayString = "${app.admin.refreshIntervalMs:60000}")
+  public synchronized void refresh() {
+    configuredAdmins = Set.copyOf(adminEmails);
+    Set<String> next = new HashSet<>(configuredAdmins);
+    next.addAll(userRepository.findAdminEmails());
+    if (!next.equals(admins)) {
+      admins = Set.copyOf(next);
+      log.info("Admin registry now has {} admins", admins.size());
+      eventPublisher.publishEvent(new AdminsChangedEvent(admins));
+    }
+  }
+
+  /**
+   * This method checks whether an email belongs to an admin, either configured or stored in the
+   * database.
+   *
+   * @param email email address of the user
+   * @return whether the user is an admin
+   */
+  public boolean isAdmin(String email) {
+    return email != null && admins.contains(email);
+  }
+
+  /**
+   * This method checks whether an email is listed in {@code app.admin.emails}.
+   *
+   * @param email email address of the user
+   * @return whether the user is a configured admin
+   */
+  public boolean isConfiguredAdmin(String email) {
+    return email != null && configuredAdmins.contains(email);
+  }
+}
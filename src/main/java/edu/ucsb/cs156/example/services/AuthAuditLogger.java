@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service for logging authentication details (OAuth attributes, granted authorities and
+ * so on) without slowing down every request.
+ *
+ * <p>Events are written at {@code app.authAudit.level}, for a random {@code
+ * app.authAudit.sampleRate} fraction of calls, and at most {@code app.authAudit.maxPerSecond} times
+ * per second. The fields of an event are only computed once all of these checks pass, and are
+ * attached both to the message and as SLF4J key/value pairs for structured log formats. Events
+ * dropped by the rate limit are counted in the next event that is written.
+ */
+@Slf4j
+@Service
+public class AuthAuditLogger {
+
+  @Value("${app.authAudit.level:DEBUG}")
+  private Level level = Level.DEBUG;
+
+  @Value("${app.authAudit.sampleRate:1.0}")
+  private double sampleRate = 1.0;
+
+  @Value("${app.authAudit.maxPerSecond:10}")
+  private int maxPerSecond = 10;
+
+  private Clock clock = Clock.systemUTC();
+
+  private long windowSecond = -1;
+  private int windowCount = 0;
+  private long dropped = 0;
+
+  /**
+   * This method logs an authentication event, if it is sampled and within the rate limit.
+   *
+   * @param event short name of the event
+   * @param fields supplies the details of the event; only called if the event is logged
+   */
+  public void audit(String event, Supplier<Map<String, ?>> fields) {
+    if (!log.isEnabledForLevel(level)) {
+      return;
+    }
+    if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    long droppedBefore;
+    synchronized (this) {
+      long second = clock.millis() / 1000;
+      if (second != windowSecond) {
+        windowSecond = second;
+        windowCount = 0;
+      }
+      if (windowCount >= maxPerSecond) {
+        dropped++;
+        return;
+      }
+      windowCount++;
+      droppedBefore = dropped;
+      dropped = 0;
+    }
+    Map<String, ?> details = fields.get();
+    LoggingEventBuilder builder =
+        log.atLevel(level)
+            .setMessage("auth audit {} {} (dropped since last event: {})")
+            .addArgument(event)
+            .addArgument(details)
+            .addArgument(droppedBefore)
+            .addKeyValue("event", event)
+            .addKeyValue("dropped", droppedBefore);
+    details.forEach(builder::addKeyValue);
+    builder.log();
+  }
+}
@@ -3,14 +3,16 @@ package edu.ucsb.cs156.example.services;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import lombok.extern.slf4j.Slf4j;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -18,13 +20,19 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * This is a service that provides information about the current user.
  *
  * <p>This is the version of the service used in production.
+ *
+ * <p>The resolved User is cached in the HTTP session for up to {@code app.currentUser.cacheTtlMs}
+ * milliseconds, so authenticated API calls do not each look the user up by email. The cache is
+ * dropped when the session's login changes, and for every session when {@link
+ * #invalidateCachedUsers()} is called after an admin change.
  */
-@Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
@@ -32,8 +40,37 @@ public class CurrentUserServiceImpl extends CurrentUserService {
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  @Autowired AdminRegistry adminRegistry;
+
+  @Autowired AuthAuditLogger authAuditLogger;
+
+  @Value("${app.currentUser.cacheTtlMs:60000}")
+  private long cacheTtlMs;
+
+  /** Name of the session attribute that holds the cached User. */
+  static final String CACHED_USER_ATTRIBUTE = CurrentUserServiceImpl.class.getName() + ".USER";
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private record CachedUser(String email, User user, long generation, long loadedAtMs) {}
+
+  /**
+   * This method makes every session look its user up again on its next request, e.g. after a user's
+   * admin status has changed.
+   */
+  public void invalidateCachedUsers() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * This method drops every session's cached User when the set of admins changes.
+   *
+   * @param event the change
+   */
+  @EventListener
+  public void onAdminsChanged(AdminRegistry.AdminsChangedEvent event) {
+    invalidateCachedUsers();
+  }
 
   /**
    * This method returns the current user as a User object.
@@ -42,7 +79,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    */
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
+    authAuditLogger.audit("currentUser", () -> Map.of("currentUser", cu));
     return cu;
   }
 
@@ -70,15 +107,24 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
+    authAuditLogger.audit("oauth2User", () -> Map.of("attributes", oAuthUser.getAttributes()));
 
     Optional<User> ou = userRepository.findByEmail(email);
+    if (ou.isEmpty() && googleSub != null) {
+      // the Google account's email address has changed since the user was stored
+      ou = userRepository.findByGoogleSub(googleSub);
+      ou.ifPresent(
+          u -> {
+            u.setEmail(email);
+            userRepository.save(u);
+          });
+    }
     if (ou.isPresent()) {
       User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
+      if (adminRegistry.isConfiguredAdmin(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
+        invalidateCachedUsers();
       }
       return u;
     }
@@ -94,9 +140,15 @@ public class CurrentUserServiceImpl extends CurrentUserService {
             .emailVerified(emailVerified)
             .locale(locale)
             .hostedDomain(hostedDomain)
-            .admin(adminEmails.contains(email))
+            .admin(adminRegistry.isConfiguredAdmin(email))
             .build();
-    userRepository.save(u);
+    try {
+      userRepository.save(u);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent first login stored this user already; the unique indexes on email and
+      // google_sub keep it to one row
+      return userRepository.findByEmail(email).orElseThrow(() -> e);
+    }
     return u;
   }
 
@@ -109,8 +161,26 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
 
-    if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    if (authentication instanceof OAuth2AuthenticationToken token) {
+      String email = token.getPrincipal().getAttribute("email");
+      RequestAttributes request = RequestContextHolder.getRequestAttributes();
+      if (request == null) {
+        return getOAuth2AuthenticatedUser(securityContext, authentication);
+      }
+      if (request.getAttribute(CACHED_USER_ATTRIBUTE, RequestAttributes.SCOPE_SESSION)
+              instanceof CachedUser cached
+          && Objects.equals(cached.email(), email)
+          && cached.generation() == generation.get()
+          && System.currentTimeMillis() - cached.loadedAtMs() < cacheTtlMs) {
+        return cached.user();
+      }
+      long loadedGeneration = generation.get();
+      User user = getOAuth2AuthenticatedUser(securityContext, authentication);
+      request.setAttribute(
+          CACHED_USER_ATTRIBUTE,
+          new CachedUser(email, user, loadedGeneration, System.currentTimeMillis()),
+          RequestAttributes.SCOPE_SESSION);
+      return user;
     }
     return null;
   }
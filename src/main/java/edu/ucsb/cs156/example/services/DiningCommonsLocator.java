@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that answers nearest-dining-commons queries from memory.
+ *
+ * <p>The commons that have a location are kept in an immutable array, with their coordinates
+ * already converted to radians. The array is rebuilt at startup, every {@code
+ * app.diningCommons.refreshIntervalMs} milliseconds, and whenever {@link #refresh()} is called
+ * after a change. With only a handful of commons a scan of the array is cheaper than walking a k-d
+ * tree or a geohash grid, so no further index is kept.
+ */
+@Slf4j
+@Service
+public class DiningCommonsLocator {
+
+  /** Mean radius of the earth in kilometers. */
+  static final double EARTH_RADIUS_KM = 6371.0088;
+
+  /**
+   * One result of a nearest-commons query.
+   *
+   * @param commons the dining commons
+   * @param distanceKm great-circle distance from the query point, in kilometers
+   */
+  public record Nearby(UCSBDiningCommons commons, double distanceKm) {}
+
+  private record Located(UCSBDiningCommons commons, double lat, double lon, double cosLat) {}
+
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private volatile Located[] located = new Located[0];
+
+  /** This method rebuilds the in-memory array of located commons from the database. */
+  @PostConstruct
+  @Scheduled(
+      initialDelayString = "${app.diningCommons.refreshIntervalMs:60000}",
+      fixedDelayString = "${app.diningCommons.refreshIntervalMs:60000}")
+  public void refresh() {
+    located =
+        ucsbDiningCommonsRepository.findByLatitudeNotNullAndLongitudeNotNull().stream()
+            .map(
+                commons -> {
+                  double lat = Math.toRadians(commons.getLatitude());
+                  return new Located(
+                      commons, lat, Math.toRadians(commons.getLongitude()), Math.cos(lat));
+                })
+            .toArray(Located[]::new);
+    log.debug("Dining commons locator now has {} commons", located.length);
+  }
+
+  /**
+   * This method returns the commons closest to a point, nearest first. Commons without a location
+   * are never returned.
+   *
+   * @param latitude latitude of the point, in degrees
+   * @param longitude longitude of the point, in degrees
+   * @param k maximum number of commons to return
+   * @return up to k commons with their distances from the point
+   */
+  public List<Nearby> nearest(double latitude, double longitude, int k) {
+    if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+      throw new IllegalArgumentException(
+          "Latitude must be in [-90, 90] and longitude in [-180, 180]");
+    }
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be at least 1");
+    }
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    double cosLat = Math.cos(lat);
+    Located[] snapshot = located;
+    Nearby[] results = new Nearby[snapshot.length];
+    for (int i = 0; i < snapshot.length; i++) {
+      results[i] = new Nearby(snapshot[i].commons(), haversineKm(lat, lon, cosLat, snapshot[i]));
+    }
+    return Arrays.stream(results)
+        .sorted(Comparator.comparingDouble(Nearby::distanceKm))
+        .limit(k)
+        .toList();
+  }
+
+  private static double haversineKm(double lat, double lon, double cosLat, Located to) {
+    double sinDLat = Math.sin((to.lat() - lat) / 2);
+    double sinDLon = Math.sin((to.lon() - lon) / 2);
+    double h = sinDLat * sinDLat + cosLat * to.cosLat() * sinDLon * sinDLon;
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, h)));
+  }
+}
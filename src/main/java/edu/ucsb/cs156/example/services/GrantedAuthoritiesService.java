@@ -1,7 +1,8 @@
 package edu.ucsb.cs156.example.services;
 
 import java.util.Collection;
-import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -9,16 +10,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 /**
- * The is a service that retrieves and logs the granted authorities for the current user's
+ * The is a service that retrieves and audits the granted authorities for the current user's
  * authentication.
  */
-@Slf4j
 @Service("grantedAuthorities")
 public class GrantedAuthoritiesService {
 
+  @Autowired AuthAuditLogger authAuditLogger;
+
   /**
-   * The function retrieves and logs the granted authorities from the current security context in a
-   * Java application.
+   * The function retrieves and audits the granted authorities from the current security context in
+   * a Java application.
    *
    * @return collection of authorities granted to the currently authenticated user.
    */
@@ -26,7 +28,7 @@ public class GrantedAuthoritiesService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
     Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-    log.info("authorities={}", authorities);
+    authAuditLogger.audit("grantedAuthorities", () -> Map.of("authorities", authorities));
     return authorities;
   }
 }
@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that keeps the menu_item_rating_stats table in step with menu item reviews.
+ *
+ * <p>Each method should be called in the same transaction as the review write it describes, so the
+ * stats and the reviews commit or roll back together. The stats row is locked while it is updated,
+ * so concurrent reviews of the same item do not lose counts.
+ */
+@Service
+public class MenuItemRatingStatsService {
+
+  @Autowired MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  /**
+   * This method records a new review.
+   *
+   * @param itemId the id of the reviewed menu item
+   * @param stars the star rating of the review
+   */
+  @Transactional
+  public void reviewAdded(long itemId, int stars) {
+    adjust(itemId, stars, 1);
+  }
+
+  /**
+   * This method records that a review was deleted. A legacy review whose star rating is outside 0
+   * through 5 was never counted, so removing it changes nothing.
+   *
+   * @param itemId the id of the reviewed menu item
+   * @param stars the star rating of the review
+   */
+  @Transactional
+  public void reviewRemoved(long itemId, int stars) {
+    adjust(itemId, stars, -1);
+  }
+
+  /**
+   * This method records that a review was edited. Nothing is written if neither the item nor the
+   * star rating changed, and a legacy old star rating outside 0 through 5 is not subtracted.
+   *
+   * @param oldItemId the item the review was for before the edit
+   * @param oldStars the star rating before the edit
+   * @param itemId the item the review is for after the edit
+   * @param stars the star rating after the edit
+   */
+  @Transactional
+  public void reviewChanged(long oldItemId, int oldStars, long itemId, int stars) {
+    if (oldItemId == itemId && oldStars == stars) {
+      return;
+    }
+    // rows are locked in itemId order, so two edits moving reviews between the same pair of
+    // items cannot deadlock
+    if (oldItemId <= itemId) {
+      adjust(oldItemId, oldStars, -1);
+      adjust(itemId, stars, 1);
+    } else {
+      adjust(itemId, stars, 1);
+      adjust(oldItemId, oldStars, -1);
+    }
+  }
+
+  private void adjust(long itemId, int stars, int delta) {
+    if (delta < 0 && (stars < 0 || stars > 5)) {
+      // reviews saved before stars were validated were left out of the backfill, so there is
+      // nothing to take away
+      return;
+    }
+    MenuItemRatingStats stats =
+        menuItemRatingStatsRepository
+            .findForUpdateByItemId(itemId)
+            .orElseGet(() -> createRow(itemId));
+    stats.adjust(stars, delta);
+    menuItemRatingStatsRepository.save(stats);
+  }
+
+  /**
+   * Inserts an empty stats row in its own transaction, so that losing a race with another request
+   * inserting the same row does not roll back the caller's transaction, then locks the row.
+   */
+  private MenuItemRatingStats createRow(long itemId) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      transaction.executeWithoutResult(
+          status -> menuItemRatingStatsRepository.save(MenuItemRatingStats.empty(itemId)));
+    } catch (DataIntegrityViolationException e) {
+      // another request inserted the row first; lock and update that one
+    }
+    return menuItemRatingStatsRepository.findForUpdateByItemId(itemId).orElseThrow();
+  }
+}
@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that writes database rows as newline-delimited JSON (NDJSON).
+ *
+ * <p>Rows are read from a JPA {@link Stream} inside a read-only transaction and written one at a
+ * time, and each entity is detached once written, so memory use stays flat regardless of table
+ * size.
+ */
+@Slf4j
+@Service("ndjsonExport")
+public class NdjsonExportService {
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @PersistenceContext EntityManager entityManager;
+
+  @Value("${app.export.flushEvery:100}")
+  private int flushEvery;
+
+  /**
+   * This method writes every row supplied by {@code rows} to {@code out}, one JSON document per
+   * line.
+   *
+   * @param rows supplies the stream of entities; called inside the read-only transaction
+   * @param out the stream to write to (not closed by this method)
+   * @param <T> the entity type
+   * @return the number of rows written
+   * @throws IOException if writing to {@code out} fails
+   */
+  public <T> long export(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    try {
+      Long written = transaction.execute(status -> writeRows(rows, out));
+      log.info("NDJSON export wrote {} rows", written);
+      return written;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private <T> long writeRows(Supplier<Stream<T>> rows, OutputStream out) {
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long written = 0;
+    try (Stream<T> stream = rows.get();
+        JsonGenerator generator =
+            mapper
+                .getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      generator.setRootValueSeparator(null);
+      Iterator<T> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        T row = iterator.next();
+        writer.writeValue(generator, row);
+        generator.writeRaw('\n');
+        entityManager.detach(row);
+        written++;
+        if (written % flushEvery == 0) {
+          generator.flush();
+        }
+      }
+      generator.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return written;
+  }
+}
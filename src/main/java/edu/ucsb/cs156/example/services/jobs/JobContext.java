@@ -1,20 +1,200 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
+/**
+ * The JobContext is handed to a running job so that it can write to its log, report progress and
+ * find out whether it has been cancelled.
+ *
+ * <p>Each message is appended as a row of {@code job_log_lines}; the {@code Job.log} column only
+ * keeps a summary of the most recent {@value #SUMMARY_LINES} lines.
+ *
+ * <p>Messages are buffered in memory and written once {@code flushEveryLines} lines are pending or
+ * {@code flushIntervalMs} milliseconds have passed since the last write, so a chatty job is not
+ * throttled by a database round trip per line. {@link JobService} also flushes due contexts on a
+ * schedule and always flushes when the job finishes. Progress updates are saved on the same
+ * schedule.
+ *
+ * <p>Cancellation is cooperative: a long job should check {@link #isCancelled()} between units of
+ * work and return early once it is true.
+ */
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
+  /** Number of most recent log lines kept in the {@code Job.log} summary. */
+  public static final int SUMMARY_LINES = 10;
 
-  public void log(String message) {
+  private final JobsRepository jobsRepository;
+  private final JobLogLinesRepository jobLogLinesRepository;
+  private final Job job;
+  private final int flushEveryLines;
+  private final long flushIntervalMs;
+  private final Clock clock;
+
+  private final Deque<String> summary = new ArrayDeque<>();
+  private final List<JobLogLine> pending = new ArrayList<>();
+  private int nextLineNumber = 0;
+  private long lastFlushMs;
+  private boolean unsaved = false;
+  private volatile boolean cancelled = false;
+  private volatile boolean cancelSeen = false;
+  private Consumer<JobLogLine> lineListener = line -> {};
+
+  /**
+   * Creates a context that writes every message immediately.
+   *
+   * @param jobsRepository repository used to save the job (may be null)
+   * @param jobLogLinesRepository repository used to save log lines (may be null)
+   * @param job the running job
+   */
+  public JobContext(
+      JobsRepository jobsRepository, JobLogLinesRepository jobLogLinesRepository, Job job) {
+    this(jobsRepository, jobLogLinesRepository, job, 1, 0, Clock.systemUTC());
+  }
+
+  /**
+   * Creates a context that buffers messages.
+   *
+   * @param jobsRepository repository used to save the job (may be null)
+   * @param jobLogLinesRepository repository used to save log lines (may be null)
+   * @param job the running job
+   * @param flushEveryLines write once this many lines are pending
+   * @param flushIntervalMs write once this many milliseconds have passed since the last write
+   * @param clock clock used to measure the interval
+   */
+  public JobContext(
+      JobsRepository jobsRepository,
+      JobLogLinesRepository jobLogLinesRepository,
+      Job job,
+      int flushEveryLines,
+      long flushIntervalMs,
+      Clock clock) {
+    this.jobsRepository = jobsRepository;
+    this.jobLogLinesRepository = jobLogLinesRepository;
+    this.job = job;
+    this.flushEveryLines = flushEveryLines;
+    this.flushIntervalMs = flushIntervalMs;
+    this.clock = clock;
+    this.lastFlushMs = clock.millis();
+  }
+
+  /**
+   * Registers a callback that receives each log line as soon as it is logged, before it is written
+   * to the database.
+   *
+   * @param lineListener the callback
+   */
+  public void onLine(Consumer<JobLogLine> lineListener) {
+    this.lineListener = lineListener;
+  }
+
+  public synchronized void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
+    JobLogLine line =
+        JobLogLine.builder()
+            .jobId(job.getId())
+            .lineNumber(nextLineNumber++)
+            .loggedAt(ZonedDateTime.now())
+            .message(message)
+            .build();
+    pending.add(line);
+    lineListener.accept(line);
+    summary.addLast(message);
+    if (summary.size() > SUMMARY_LINES) {
+      summary.removeFirst();
+    }
+    job.setLog(String.join("\n", summary));
+    unsaved = true;
+    if (pending.size() >= flushEveryLines || isFlushDue()) {
+      flush();
+    }
+  }
+
+  /**
+   * Records how far the job has got.
+   *
+   * @param percent estimated completion, from 0 to 100
+   * @param step short description of what the job is doing now
+   * @param itemsProcessed number of items handled so far
+   */
+  public synchronized void progress(int percent, String step, long itemsProcessed) {
+    job.setProgressPercent(Math.max(0, Math.min(100, percent)));
+    job.setCurrentStep(step);
+    job.setItemsProcessed(itemsProcessed);
+    unsaved = true;
+    if (isFlushDue()) {
+      flush();
+    }
+  }
+
+  /**
+   * Returns true once someone has asked for this job to be cancelled.
+   *
+   * @return whether the job should stop
+   */
+  public boolean isCancelled() {
+    if (cancelled) {
+      cancelSeen = true;
+    }
+    return cancelled;
+  }
+
+  /**
+   * Returns true if the job has been told, through {@link #isCancelled()}, that it was cancelled. A
+   * cancel that arrives after the job's last check does not stop it, so the job still completes.
+   *
+   * @return whether the job stopped because it was cancelled
+   */
+  boolean wasStoppedByCancel() {
+    return cancelSeen;
+  }
+
+  /**
+   * Continues line numbering after the lines already stored for this job, so that a job run again
+   * after being requeued does not reuse the line numbers of its earlier attempts.
+   *
+   * @param lineNumber number of the next line to log
+   */
+  synchronized void startAtLine(int lineNumber) {
+    nextLineNumber = lineNumber;
+  }
+
+  /** Asks the job to stop at its next {@link #isCancelled()} check. */
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Writes pending log lines and progress if the flush interval has passed since the last write.
+   */
+  public synchronized void flushIfDue() {
+    if (unsaved && isFlushDue()) {
+      flush();
+    }
+  }
+
+  /** Writes pending log lines in one batch and saves the job with its updated summary. */
+  public synchronized void flush() {
+    if (jobLogLinesRepository != null && !pending.isEmpty()) {
+      jobLogLinesRepository.saveAll(List.copyOf(pending));
+    }
+    pending.clear();
     if (jobsRepository != null) jobsRepository.save(job);
+    unsaved = false;
+    lastFlushMs = clock.millis();
+  }
+
+  private boolean isFlushDue() {
+    return clock.millis() - lastFlushMs >= flushIntervalMs;
   }
 }
@@ -1,6 +1,17 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import edu.ucsb.cs156.example.jobs.TestJob;
+
+/**
+ * A job body. Jobs are stored as JSON in the job queue, so every implementation that is launched
+ * through {@link JobService#runAsJob} must be listed in {@link JsonSubTypes} and be serializable by
+ * Jackson.
+ */
 @FunctionalInterface
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({@JsonSubTypes.Type(TestJob.class)})
 public interface JobContextConsumer {
   void accept(JobContext c) throws Exception;
 }
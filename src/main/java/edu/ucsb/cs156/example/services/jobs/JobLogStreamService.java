@@ -0,0 +1,251 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams job log lines and status changes to clients as server-sent events.
+ *
+ * <p>Lines logged by jobs on this instance are pushed as {@link JobContext#log} produces them. A
+ * scheduled catch-up reads only the lines a subscriber has not seen yet (and the job's status
+ * column), which covers jobs running on other instances and any push that arrived out of order.
+ *
+ * <p>Neither a job thread nor the scheduler ever writes to a client. Each subscriber queues its
+ * pushes and catch-ups and runs them one at a time on the {@link
+ * JobExecutorConfig#LOG_STREAM_EXECUTOR} executor, so a slow client only holds up its own stream.
+ * Once {@value #MAX_QUEUED_TASKS} tasks are waiting, further pushed lines are dropped and left for
+ * the next catch-up.
+ *
+ * <p>Each line is sent as a {@code log} event whose id is the line number, so a reconnecting
+ * client's {@code Last-Event-ID} resumes where it left off. Status changes are sent as {@code
+ * status} events; the stream ends once the job has finished.
+ */
+@Service
+@Slf4j
+public class JobLogStreamService {
+  /** Statuses after which a job's log no longer changes. */
+  public static final Set<String> FINISHED_STATUSES =
+      Set.of("complete", "error", "cancelled", "rejected");
+
+  /** Most tasks a subscriber queues before it starts dropping pushed lines. */
+  static final int MAX_QUEUED_TASKS = 1000;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.LOG_STREAM_EXECUTOR)
+  private Executor streamExecutor;
+
+  @Value("${app.jobs.logStream.timeoutMs:1800000}")
+  private long timeoutMs;
+
+  private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  /**
+   * Opens a stream for a job, starting with the lines after lastLineNumber.
+   *
+   * @param jobId id of the job
+   * @param lastLineNumber last line the client already has, or -1 for the whole log
+   * @return the emitter to return from the controller
+   */
+  public SseEmitter subscribe(long jobId, int lastLineNumber) {
+    SseEmitter emitter = newEmitter();
+    Subscriber subscriber = new Subscriber(jobId, emitter, lastLineNumber);
+    subscribers.compute(
+        jobId,
+        (id, set) -> {
+          Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+          result.add(subscriber);
+          return result;
+        });
+    emitter.onCompletion(subscriber::close);
+    emitter.onError(e -> subscriber.close());
+    subscriber.requestCatchUp();
+    return emitter;
+  }
+
+  /**
+   * Pushes a freshly logged line to the job's subscribers.
+   *
+   * @param line the line
+   */
+  public void publishLine(JobLogLine line) {
+    subscribersOf(line.getJobId()).forEach(s -> s.pushLine(line));
+  }
+
+  /**
+   * Pushes a job's current status to its subscribers.
+   *
+   * @param job the job
+   */
+  public void publishStatus(Job job) {
+    subscribersOf(job.getId()).forEach(s -> s.pushStatus(job.getStatus()));
+  }
+
+  /** Queues a catch-up for every subscriber that does not already have one waiting. */
+  @Scheduled(fixedDelayString = "${app.jobs.logStream.pollIntervalMs:1000}")
+  public void catchUpAll() {
+    subscribers.values().forEach(set -> set.forEach(Subscriber::requestCatchUp));
+  }
+
+  SseEmitter newEmitter() {
+    return new SseEmitter(timeoutMs);
+  }
+
+  private Set<Subscriber> subscribersOf(long jobId) {
+    return subscribers.getOrDefault(jobId, Set.of());
+  }
+
+  private final class Subscriber {
+    private final long jobId;
+    private final SseEmitter emitter;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+    // only touched by the task running on the stream executor
+    private int lastLineNumber;
+    private String lastStatus;
+    private volatile boolean closed = false;
+
+    private Subscriber(long jobId, SseEmitter emitter, int lastLineNumber) {
+      this.jobId = jobId;
+      this.emitter = emitter;
+      this.lastLineNumber = lastLineNumber;
+    }
+
+    void pushLine(JobLogLine line) {
+      // a client this far behind gets the line from a catch-up instead
+      if (queuedTasks.get() < MAX_QUEUED_TASKS) {
+        submit(() -> line(line));
+      }
+    }
+
+    void pushStatus(String status) {
+      submit(() -> status(status));
+    }
+
+    void requestCatchUp() {
+      if (catchUpQueued.compareAndSet(false, true)) {
+        submit(
+            () -> {
+              catchUpQueued.set(false);
+              catchUp();
+            });
+      }
+    }
+
+    /** Queues a task; the first task queued while none is running starts a drain. */
+    private void submit(Runnable task) {
+      tasks.add(task);
+      if (queuedTasks.getAndIncrement() == 0) {
+        try {
+          streamExecutor.execute(this::drain);
+        } catch (TaskRejectedException e) {
+          log.debug("job {} log stream dropped: {}", jobId, e.getMessage());
+          tasks.clear();
+          queuedTasks.set(0);
+          close();
+        }
+      }
+    }
+
+    private void drain() {
+      do {
+        try {
+          tasks.poll().run();
+        } catch (RuntimeException e) {
+          log.warn("job {} log stream task failed: {}", jobId, e.getMessage());
+        }
+      } while (queuedTasks.decrementAndGet() > 0);
+    }
+
+    private void catchUp() {
+      readNewLines();
+      jobsRepository.findStatusById(jobId).ifPresentOrElse(this::status, this::finish);
+    }
+
+    private void line(JobLogLine line) {
+      // a line after a gap waits for the next catch-up, so lines always arrive in order
+      if (closed || line.getLineNumber() != lastLineNumber + 1) {
+        return;
+      }
+      if (send(
+          SseEmitter.event()
+              .name("log")
+              .id(Integer.toString(line.getLineNumber()))
+              .data(line.getMessage()))) {
+        lastLineNumber = line.getLineNumber();
+      }
+    }
+
+    private void status(String status) {
+      if (closed || status.equals(lastStatus)) {
+        return;
+      }
+      boolean finished = FINISHED_STATUSES.contains(status);
+      if (finished) {
+        // the last lines are written before the final status, so this sees all of them
+        readNewLines();
+      }
+      if (send(SseEmitter.event().name("status").data(status))) {
+        lastStatus = status;
+        if (finished) {
+          finish();
+        }
+      }
+    }
+
+    private void readNewLines() {
+      jobLogLinesRepository
+          .findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(jobId, lastLineNumber)
+          .forEach(this::line);
+    }
+
+    private boolean send(SseEmitter.SseEventBuilder event) {
+      if (closed) {
+        return false;
+      }
+      try {
+        emitter.send(event);
+        return true;
+      } catch (IOException | IllegalStateException e) {
+        log.debug("job {} log stream closed: {}", jobId, e.getMessage());
+        close();
+        return false;
+      }
+    }
+
+    private void finish() {
+      close();
+      emitter.complete();
+    }
+
+    void close() {
+      closed = true;
+      subscribers.computeIfPresent(
+          jobId, (id, set) -> set.remove(this) && set.isEmpty() ? null : set);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * The JobRetentionService keeps the jobs table from growing without bound. On a schedule it deletes
+ * finished jobs that have not been updated for {@code maxAgeDays}, and the oldest finished jobs of
+ * each status beyond the newest {@code maxRowsPerStatus}. Pending, claimed and running jobs are
+ * never pruned.
+ *
+ * <p>Jobs are deleted in batches of at most {@code batchSize}, each in its own short transaction,
+ * and at most {@code maxBatches} batches per status and rule in one run, so a large backlog is
+ * worked off over several runs instead of in one long delete. Deleted rows are counted by the
+ * {@value #PRUNED_METRIC} counter, tagged with the job status and the rule ("age" or "count").
+ */
+@Service
+@Slf4j
+public class JobRetentionService {
+  /** Name of the counter of pruned jobs. */
+  public static final String PRUNED_METRIC = "jobs.retention.pruned";
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Value("${app.jobs.retention.maxAgeDays:30}")
+  private int maxAgeDays;
+
+  @Value("${app.jobs.retention.maxRowsPerStatus:1000}")
+  private int maxRowsPerStatus;
+
+  @Value("${app.jobs.retention.batchSize:500}")
+  private int batchSize;
+
+  @Value("${app.jobs.retention.maxBatches:20}")
+  private int maxBatches;
+
+  /**
+   * Deletes finished jobs that are too old, or beyond the row limit for their status. A limit of 0
+   * turns that rule off.
+   *
+   * @return number of jobs deleted
+   */
+  @Scheduled(
+      initialDelayString = "${app.jobs.retention.intervalMs:3600000}",
+      fixedDelayString = "${app.jobs.retention.intervalMs:3600000}")
+  public int pruneJobs() {
+    ZonedDateTime cutoff = ZonedDateTime.now().minusDays(maxAgeDays);
+    int pruned = 0;
+    for (String status : JobLogStreamService.FINISHED_STATUSES) {
+      if (maxAgeDays > 0) {
+        pruned +=
+            prune(
+                status,
+                "age",
+                limit -> jobsRepository.findIdsByStatusAndUpdatedAtBefore(status, cutoff, limit));
+      }
+      if (maxRowsPerStatus > 0) {
+        List<Long> firstExcess =
+            jobsRepository.findIdsByStatusOrderByIdDesc(
+                status, PageRequest.of(maxRowsPerStatus, 1));
+        if (!firstExcess.isEmpty()) {
+          long maxId = firstExcess.get(0);
+          pruned +=
+              prune(
+                  status,
+                  "count",
+                  limit -> jobsRepository.findIdsByStatusAndIdAtMost(status, maxId, limit));
+        }
+      }
+    }
+    if (pruned > 0) {
+      log.info("Job retention pruned {} jobs", pruned);
+    }
+    return pruned;
+  }
+
+  private int prune(String status, String reason, Function<Limit, List<Long>> nextBatch) {
+    Counter counter = meterRegistry.counter(PRUNED_METRIC, "status", status, "reason", reason);
+    int pruned = 0;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      List<Long> ids = nextBatch.apply(Limit.of(batchSize));
+      if (ids.isEmpty()) {
+        break;
+      }
+      int deleted = jobsRepository.deleteByIds(ids);
+      counter.increment(deleted);
+      pruned += deleted;
+      if (ids.size() < batchSize) {
+        break;
+      }
+    }
+    return pruned;
+  }
+}
@@ -1,44 +1,274 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Slf4j
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private JobLogStreamService jobLogStreamService;
+
   @Lazy @Autowired private JobService self;
 
+  @Value("${app.jobs.log.flushEveryLines:50}")
+  private int logFlushEveryLines;
+
+  @Value("${app.jobs.log.flushIntervalMs:1000}")
+  private long logFlushIntervalMs;
+
+  @Value("${app.jobs.logs.maxLines:10000}")
+  private int logMaxLines;
+
+  @Value("${app.jobs.queue.batchSize:10}")
+  private int queueBatchSize;
+
+  @Value("${app.jobs.queue.staleAfterMs:300000}")
+  private long queueStaleAfterMs;
+
+  @Value("${app.jobs.queue.maxAttempts:3}")
+  private int queueMaxAttempts;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobTaskExecutor;
+
+  private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+  private final Map<Long, JobContext> runningContexts = new ConcurrentHashMap<>();
+  private final Set<Long> claimedJobIds = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Adds a job to the persistent job queue. The job starts once an instance with a free job
+   * executor slot claims it in {@link #pollQueue()}.
+   *
+   * @param jobFunction the job body; must be a Jackson-serializable {@link JobContextConsumer}
+   * @return the pending job
+   */
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status("pending")
+            .payload(toPayload(jobFunction))
+            .build();
 
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    return job;
+  }
+
+  /**
+   * Keeps the heartbeat of this instance's jobs fresh, passes on cancellation requests, requeues
+   * jobs whose owner has stopped (e.g. after a restart), and starts as many pending jobs as the job
+   * executor has room for.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.pollIntervalMs:1000}")
+  public void pollQueue() {
+    ZonedDateTime now = ZonedDateTime.now();
+    if (!claimedJobIds.isEmpty()) {
+      Set<Long> ids = Set.copyOf(claimedJobIds);
+      jobsRepository.touchHeartbeat(ids, now);
+      jobsRepository.findCancelRequestedIds(ids).forEach(this::cancelLocally);
+    }
+
+    int requeued = jobsRepository.requeueStaleJobs(now.minus(Duration.ofMillis(queueStaleAfterMs)));
+    if (requeued > 0) {
+      log.warn("requeued {} job(s) with no heartbeat since {} ms", requeued, queueStaleAfterMs);
+    }
+
+    int freeSlots = Math.min(queueBatchSize, freeExecutorSlots());
+    if (freeSlots > 0) {
+      self.claimPendingJobs(freeSlots).forEach(this::dispatch);
+    }
+  }
+
+  /**
+   * Claims up to max pending jobs for this instance. Rows locked by another instance are skipped,
+   * so several instances can poll the same queue.
+   *
+   * @param max maximum number of jobs to claim
+   * @return the claimed jobs
+   */
+  @Transactional
+  public List<Job> claimPendingJobs(int max) {
+    List<Job> jobs = jobsRepository.findByStatusOrderByIdAsc("pending", Limit.of(max));
+    if (jobs.isEmpty()) {
+      return jobs;
+    }
+
+    ZonedDateTime now = ZonedDateTime.now();
+    for (Job job : jobs) {
+      job.setStatus("claimed");
+      job.setClaimedBy(instanceId);
+      job.setClaimedAt(now);
+      job.setAttempts(job.getAttempts() + 1);
+    }
+    jobsRepository.saveAll(jobs);
+    jobsRepository.touchHeartbeat(jobs.stream().map(Job::getId).toList(), now);
+    return jobs;
+  }
+
+  private void dispatch(Job job) {
+    if (job.getAttempts() > queueMaxAttempts) {
+      finishWithoutRunning(
+          job, "error", "Job abandoned after %d attempts".formatted(job.getAttempts() - 1));
+      return;
+    }
+
+    JobContextConsumer jobFunction;
+    try {
+      jobFunction = mapper.readValue(job.getPayload(), JobContextConsumer.class);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      finishWithoutRunning(job, "error", "Job cannot be resumed: " + e.getMessage());
+      return;
+    }
+
+    claimedJobIds.add(job.getId());
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      claimedJobIds.remove(job.getId());
+      log.warn("job {} rejected: {}", job.getId(), e.getMessage());
+      finishWithoutRunning(
+          job, "rejected", "Job rejected: too many jobs are running or queued; try again later.");
+    }
+  }
 
+  /**
+   * Cancels a job. A pending job is cancelled straight away. A claimed or running job is flagged,
+   * and stops at its next {@link JobContext#isCancelled()} check on whichever instance runs it.
+   * Finished jobs are left as they are.
+   *
+   * @param job the job to cancel
+   * @return the job, with its status or cancelRequested flag updated
+   */
+  public Job cancelJob(Job job) {
+    long id = job.getId();
+    if (jobsRepository.cancelPendingJob(id) > 0) {
+      job.setStatus("cancelled");
+      jobLogStreamService.publishStatus(job);
+    } else if (jobsRepository.requestCancel(id) > 0) {
+      job.setCancelRequested(true);
+      cancelLocally(id);
+    }
     return job;
   }
 
-  @Async
+  private void cancelLocally(long jobId) {
+    JobContext context = runningContexts.get(jobId);
+    if (context != null) {
+      context.cancel();
+    }
+  }
+
+  private void finishWithoutRunning(Job job, String status, String message) {
+    job.setStatus(status);
+    job.setLog(message);
+    jobsRepository.save(job);
+    jobLogStreamService.publishStatus(job);
+  }
+
+  private int freeExecutorSlots() {
+    return jobTaskExecutor.getMaxPoolSize()
+        + jobTaskExecutor.getQueueCapacity()
+        - jobTaskExecutor.getActiveCount()
+        - jobTaskExecutor.getQueueSize();
+  }
+
+  private String toPayload(JobContextConsumer jobFunction) {
+    try {
+      String payload = mapper.writerFor(JobContextConsumer.class).writeValueAsString(jobFunction);
+      mapper.readValue(payload, JobContextConsumer.class);
+      return payload;
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(
+          "Job %s cannot be queued: %s"
+              .formatted(jobFunction.getClass().getSimpleName(), e.getOriginalMessage()));
+    }
+  }
+
+  @Async(JobExecutorConfig.JOB_EXECUTOR)
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    job.setStatus("running");
+    jobsRepository.save(job);
+    jobLogStreamService.publishStatus(job);
+
+    JobContext context =
+        new JobContext(
+            jobsRepository,
+            jobLogLinesRepository,
+            job,
+            logFlushEveryLines,
+            logFlushIntervalMs,
+            Clock.systemUTC());
+    context.onLine(jobLogStreamService::publishLine);
+    // a requeued job keeps the lines logged by its earlier attempts
+    context.startAtLine(
+        jobLogLinesRepository.findMaxLineNumberByJobId(job.getId()).map(n -> n + 1).orElse(0));
+    runningContexts.put(job.getId(), context);
+    // a cancel requested while the job was waiting for a thread
+    if (!jobsRepository.findCancelRequestedIds(List.of(job.getId())).isEmpty()) {
+      context.cancel();
+    }
 
     try {
-      jobFunction.accept(context);
+      if (!context.isCancelled()) {
+        jobFunction.accept(context);
+      }
+      job.setStatus("complete");
     } catch (Exception e) {
       job.setStatus("error");
       context.log(e.getMessage());
-      return;
+    } finally {
+      if (context.wasStoppedByCancel()) {
+        job.setStatus("cancelled");
+        context.log("Job cancelled");
+      }
+      runningContexts.remove(job.getId());
+      claimedJobIds.remove(job.getId());
+      context.flush();
+      jobLogStreamService.publishStatus(job);
     }
+  }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+  /** Writes buffered log lines of running jobs that have waited longer than the flush interval. */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flushIntervalMs:1000}")
+  public void flushRunningJobLogs() {
+    runningContexts.values().forEach(JobContext::flushIfDue);
   }
 
   public String getJobLogs(Long jobId) {
@@ -47,7 +277,55 @@ public class JobService {
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    List<JobLogLine> lines = jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(jobId);
+    if (lines.isEmpty()) {
+      // jobs that ran before log lines were stored separately only have the log column
+      String log = job.getLog();
+      return log != null ? log : "";
+    }
+    return lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * Returns part of a job's log: the last tail lines when tail is given, otherwise up to limit
+   * lines starting at line number offset. Both are capped at app.jobs.logs.maxLines. With no
+   * parameters the whole log is returned, as by {@link #getJobLogs(Long)}.
+   *
+   * @param jobId id of the job
+   * @param offset first line to return, counting from 0 (default 0)
+   * @param limit maximum number of lines to return (default app.jobs.logs.maxLines)
+   * @param tail number of lines to return from the end of the log; overrides offset and limit
+   * @return the requested lines, joined by newlines
+   */
+  public String getJobLogs(Long jobId, Integer offset, Integer limit, Integer tail) {
+    if (offset == null && limit == null && tail == null) {
+      return getJobLogs(jobId);
+    }
+    if (jobsRepository.findStatusById(jobId).isEmpty()) {
+      throw new IllegalArgumentException("Job not found");
+    }
+
+    int requested = tail != null ? tail : limit != null ? limit : logMaxLines;
+    int count = Math.max(0, Math.min(requested, logMaxLines));
+    int start = tail == null && offset != null ? Math.max(0, offset) : 0;
+    if (count == 0) {
+      return "";
+    }
+
+    List<JobLogLine> lines =
+        tail != null
+            ? jobLogLinesRepository
+                .findAllByJobIdOrderByLineNumberDesc(jobId, Limit.of(count))
+                .reversed()
+            : jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+                jobId, start, Limit.of(count));
+    if (lines.isEmpty() && !jobLogLinesRepository.existsByJobId(jobId)) {
+      // jobs that ran before log lines were stored separately only have the log column
+      String log = jobsRepository.findById(jobId).map(Job::getLog).orElse(null);
+      List<String> legacy = log != null ? log.lines().toList() : List.of();
+      int from = tail != null ? Math.max(0, legacy.size() - count) : Math.min(start, legacy.size());
+      return String.join("\n", legacy.subList(from, Math.min(legacy.size(), from + count)));
+    }
+    return lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n"));
   }
 }
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.services.search;
+
+import edu.ucsb.cs156.example.entities.Article;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This is a service for full-text search over articles.
+ *
+ * <p>There are two implementations, depending on the profile in use: an in-process inverted index
+ * for development and tests, and a Postgres full-text query for production, where several instances
+ * share one database.
+ */
+public abstract class ArticleSearchService {
+  /**
+   * This method returns the articles matching a query, best match first.
+   *
+   * @param query free text; articles matching any of its words (see {@link #tokenize}) are returned
+   * @param limit maximum number of articles to return
+   * @return up to limit matching articles
+   */
+  public abstract List<Article> search(String query, int limit);
+
+  /**
+   * This method is called after an article is created or updated.
+   *
+   * @param article the saved article
+   */
+  public abstract void articleSaved(Article article);
+
+  /**
+   * This method is called after an article is deleted.
+   *
+   * @param id the id of the deleted article
+   */
+  public abstract void articleDeleted(long id);
+
+  /**
+   * Splits text into lower case words, treating every character that is not a letter or digit as a
+   * separator. Both implementations read queries this way, so they agree on what a word is.
+   */
+  static List<String> tokenize(String text) {
+    if (text == null) {
+      return List.of();
+    }
+    return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        .filter(word -> !word.isEmpty())
+        .toList();
+  }
+}
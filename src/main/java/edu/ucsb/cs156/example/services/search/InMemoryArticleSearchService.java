@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.services.search;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is the article search used outside production. It keeps an inverted index from each word of
+ * an article's title, url and explanation to the articles containing it, and ranks matches with
+ * BM25.
+ *
+ * <p>The index is built from the database at startup and updated by {@link #articleSaved(Article)}
+ * and {@link #articleDeleted(long)}, so it only sees writes made through this instance.
+ */
+@Slf4j
+@Service("articleSearchService")
+@Profile("!production")
+public class InMemoryArticleSearchService extends ArticleSearchService {
+
+  /** BM25 term frequency saturation. */
+  static final double K1 = 1.2;
+
+  /** BM25 document length normalization. */
+  static final double B = 0.75;
+
+  private record Indexed(Article article, Map<String, Integer> termCounts, int length) {}
+
+  @Autowired ArticleRepository articleRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Long, Indexed> articles = new HashMap<>();
+
+  private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+  private long totalLength;
+
+  /** This method rebuilds the index from every article in the database. */
+  @PostConstruct
+  public void rebuild() {
+    lock.writeLock().lock();
+    try {
+      articles.clear();
+      postings.clear();
+      totalLength = 0;
+      articleRepository.findAll().forEach(this::add);
+      log.info("Article search index built with {} articles", articles.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void articleSaved(Article article) {
+    lock.writeLock().lock();
+    try {
+      remove(article.getId());
+      add(article);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void articleDeleted(long id) {
+    lock.writeLock().lock();
+    try {
+      remove(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Article> search(String query, int limit) {
+    List<String> terms = tokenize(query).stream().distinct().toList();
+    lock.readLock().lock();
+    try {
+      if (articles.isEmpty()) {
+        return List.of();
+      }
+      double n = articles.size();
+      double averageLength = totalLength / n;
+      Map<Long, Double> scores = new HashMap<>();
+      for (String term : terms) {
+        Map<Long, Integer> matches = postings.getOrDefault(term, Map.of());
+        double idf = Math.log(1 + (n - matches.size() + 0.5) / (matches.size() + 0.5));
+        matches.forEach(
+            (id, count) -> {
+              double norm = K1 * (1 - B + B * articles.get(id).length() / averageLength);
+              scores.merge(id, idf * count * (K1 + 1) / (count + norm), Double::sum);
+            });
+      }
+      return scores.entrySet().stream()
+          .sorted(
+              Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                  .thenComparing(Map.Entry.comparingByKey()))
+          .limit(limit)
+          .map(e -> articles.get(e.getKey()).article())
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Article article) {
+    List<String> words = new ArrayList<>();
+    words.addAll(tokenize(article.getTitle()));
+    words.addAll(tokenize(article.getUrl()));
+    words.addAll(tokenize(article.getExplanation()));
+    Map<String, Integer> termCounts = new HashMap<>();
+    words.forEach(word -> termCounts.merge(word, 1, Integer::sum));
+    termCounts.forEach(
+        (term, count) ->
+            postings.computeIfAbsent(term, t -> new HashMap<>()).put(article.getId(), count));
+    articles.put(article.getId(), new Indexed(article, termCounts, words.size()));
+    totalLength += words.size();
+  }
+
+  private void remove(long id) {
+    Indexed old = articles.remove(id);
+    if (old == null) {
+      return;
+    }
+    totalLength -= old.length();
+    for (String term : old.termCounts().keySet()) {
+      Map<Long, Integer> matches = postings.get(term);
+      matches.remove(id);
+      if (matches.isEmpty()) {
+        postings.remove(term);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services.search;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is the article search used in production. It runs a Postgres full-text query backed by a GIN
+ * index, so every instance sees every write and nothing is held in memory.
+ */
+@Service("articleSearchService")
+@Profile("production")
+public class PostgresArticleSearchService extends ArticleSearchService {
+
+  @Autowired ArticleRepository articleRepository;
+
+  /**
+   * Runs the query as an OR of its words, like the in-memory index, rather than in web search
+   * syntax, which would AND them. Each word is letters and digits only, so it cannot be read as a
+   * tsquery operator.
+   */
+  @Override
+  public List<Article> search(String query, int limit) {
+    List<String> words = tokenize(query);
+    if (words.isEmpty()) {
+      return List.of();
+    }
+    return articleRepository.searchFullText(String.join(" | ", words), limit);
+  }
+
+  /** Nothing to do; the database index is updated by the write itself. */
+  @Override
+  public void articleSaved(Article article) {}
+
+  /** Nothing to do; the row leaves the index when it is deleted. */
+  @Override
+  public void articleDeleted(long id) {}
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * This is an immutable index for typeahead: it finds the items having a name, or a word within a
+ * name, that starts with a given prefix.
+ *
+ * <p>Every name is stored once for each of its words, as the lower case text from that word to the
+ * end, in one sorted array. A lookup binary-searches for the prefix and reads forward, so its cost
+ * depends on the number of suggestions asked for rather than the number of items.
+ *
+ * @param <T> the type of the items
+ */
+public final class PrefixIndex<T> {
+
+  private final String[] keys;
+
+  private final List<T> items;
+
+  private PrefixIndex() {
+    this.keys = new String[0];
+    this.items = List.of();
+  }
+
+  /**
+   * This method returns an index with no items, to stand in until the first real one is built.
+   *
+   * @param <T> the type of the items
+   * @return an empty index
+   */
+  public static <T> PrefixIndex<T> empty() {
+    return new PrefixIndex<>();
+  }
+
+  /**
+   * This constructor indexes some items.
+   *
+   * @param items the items to index
+   * @param names extracts the names of an item; null and blank names are skipped
+   */
+  public PrefixIndex(Iterable<T> items, Function<T, List<String>> names) {
+    record Entry<T>(String key, T item) {}
+    List<Entry<T>> entries = new ArrayList<>();
+    for (T item : items) {
+      for (String name : names.apply(item)) {
+        if (name == null || name.isBlank()) {
+          continue;
+        }
+        List<String> words = List.of(normalize(name).strip().split(" "));
+        for (int w = 0; w < words.size(); w++) {
+          entries.add(new Entry<>(String.join(" ", words.subList(w, words.size())), item));
+        }
+      }
+    }
+    entries.sort(Comparator.comparing(Entry::key));
+    this.keys = entries.stream().map(Entry::key).toArray(String[]::new);
+    this.items = entries.stream().map(Entry::item).toList();
+  }
+
+  /**
+   * This method returns the items with a name or word starting with a prefix, in alphabetical order
+   * of the matching text. Case and runs of whitespace in the prefix are ignored.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of items to return
+   * @return up to limit distinct items
+   */
+  public List<T> suggest(String prefix, int limit) {
+    String normalized = normalize(prefix).stripLeading();
+    Set<T> found = new LinkedHashSet<>();
+    for (int i = firstAtLeast(normalized);
+        i < keys.length && found.size() < limit && keys[i].startsWith(normalized);
+        i++) {
+      found.add(items.get(i));
+    }
+    return List.copyOf(found);
+  }
+
+  private int firstAtLeast(String key) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (keys[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static String normalize(String text) {
+    return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services.search;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that answers typeahead queries for organizations and restaurants from memory.
+ *
+ * <p>Organizations are matched on their short and full translations, restaurants on their name.
+ * Each kind has its own {@link PrefixIndex}, rebuilt at startup, every {@code
+ * app.typeahead.refreshIntervalMs} milliseconds, and whenever a controller writes that kind.
+ */
+@Service
+public class TypeaheadService {
+
+  @Autowired private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  private volatile PrefixIndex<UCSBOrganization> organizations = PrefixIndex.empty();
+
+  private volatile PrefixIndex<Restaurant> restaurants = PrefixIndex.empty();
+
+  /** This method rebuilds both indexes from the database. */
+  @PostConstruct
+  @Scheduled(
+      initialDelayString = "${app.typeahead.refreshIntervalMs:60000}",
+      fixedDelayString = "${app.typeahead.refreshIntervalMs:60000}")
+  public void refresh() {
+    refreshOrganizations();
+    refreshRestaurants();
+  }
+
+  /** This method rebuilds the organization index from the database. */
+  public void refreshOrganizations() {
+    organizations =
+        new PrefixIndex<>(
+            ucsbOrganizationRepository.findAllByOrderByOrgCodeAsc(),
+            org -> Arrays.asList(org.getOrgTranslationShort(), org.getOrgTranslation()));
+  }
+
+  /** This method rebuilds the restaurant index from the database. */
+  public void refreshRestaurants() {
+    restaurants =
+        new PrefixIndex<>(
+            restaurantRepository.findAll(), restaurant -> Arrays.asList(restaurant.getName()));
+  }
+
+  /**
+   * This method suggests organizations whose short or full translation, or a word in one, starts
+   * with a prefix.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of organizations to return
+   * @return up to limit organizations
+   */
+  public List<UCSBOrganization> suggestOrganizations(String prefix, int limit) {
+    return organizations.suggest(prefix, limit);
+  }
+
+  /**
+   * This method suggests restaurants whose name, or a word in it, starts with a prefix.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of restaurants to return
+   * @return up to limit restaurants
+   */
+  public List<Restaurant> suggestRestaurants(String prefix, int limit) {
+    return restaurants.suggest(prefix, limit);
+  }
+}
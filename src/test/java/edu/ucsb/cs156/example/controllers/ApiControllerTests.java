@@ -1,17 +1,24 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = DummyController.class)
@@ -53,4 +60,153 @@ public class ApiControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("String with id 7 not found", json.get("message"));
   }
+
+  @Test
+  public void test_that_dummy_controller_returns_bad_request_when_id_is_negative()
+      throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/dummycontroller?id=-1"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("IllegalArgumentException", json.get("type"));
+    assertEquals("id must not be negative", json.get("message"));
+  }
+
+  @Test
+  public void keyset_page_returns_everything_when_no_page_is_requested() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/dummycontroller/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[1,2,3]", response.getResponse().getContentAsString());
+    assertNull(response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_returns_next_cursor_when_page_is_full() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/dummycontroller/all?limit=2")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[1,2]", response.getResponse().getContentAsString());
+    assertEquals("2", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_omits_next_cursor_on_last_page() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/dummycontroller/all?after=2&limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals("[3]", response.getResponse().getContentAsString());
+    assertNull(response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_clamps_limit_to_at_least_one() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/dummycontroller/all?limit=0")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals("[1]", response.getResponse().getContentAsString());
+    assertEquals("1", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_clamps_limit_to_max_limit() {
+    DummyController dummyController = new DummyController();
+    ReflectionTestUtils.setField(dummyController, "allowUnbounded", true);
+    ReflectionTestUtils.setField(dummyController, "maxLimit", 2);
+
+    ResponseEntity<Iterable<Long>> response = dummyController.all(null, 50);
+
+    assertEquals(List.of(1L, 2L), response.getBody());
+    assertEquals("2", response.getHeaders().getFirst(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_uses_default_limit_when_unbounded_listing_is_disabled() {
+    DummyController dummyController = new DummyController();
+    ReflectionTestUtils.setField(dummyController, "allowUnbounded", false);
+    ReflectionTestUtils.setField(dummyController, "defaultLimit", 2);
+    ReflectionTestUtils.setField(dummyController, "maxLimit", 1000);
+
+    ResponseEntity<Iterable<Long>> response = dummyController.all(null, null);
+
+    assertEquals(List.of(1L, 2L), response.getBody());
+    assertEquals("2", response.getHeaders().getFirst(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void keyset_page_has_no_etag_for_rows_that_are_not_versioned() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/dummycontroller/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertNull(response.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  public void etag_changes_with_version_and_contents() {
+    UCSBOrganization org =
+        UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("Zeta").version(0L).build();
+    UCSBOrganization same =
+        UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("Zeta").version(0L).build();
+    UCSBOrganization renamed =
+        UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("Zed").version(0L).build();
+    UCSBOrganization updated =
+        UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("Zeta").version(1L).build();
+
+    String etag = ApiController.eTagOf(List.of(org));
+
+    assertEquals(etag, ApiController.eTagOf(List.of(same)));
+    assertNotEquals(etag, ApiController.eTagOf(List.of(renamed)));
+    assertNotEquals(etag, ApiController.eTagOf(List.of(updated)));
+    assertNotEquals(etag, ApiController.eTagOf(List.of(org, same)));
+    assertEquals("W/\"d41d8cd98f00b204e9800998ecf8427e\"", ApiController.eTagOf(List.of()));
+  }
+
+  @Test
+  public void etag_depends_on_keys_and_versions_not_just_row_hashes() {
+    UCSBOrganization first = UCSBOrganization.builder().orgCode("A").version(1L).build();
+    UCSBOrganization second = UCSBOrganization.builder().orgCode("B").version(1L).build();
+    // same hash code as first, but a different key
+    UCSBOrganization other =
+        new UCSBOrganization("B", null, null, false, 1L) {
+          @Override
+          public int hashCode() {
+            return first.hashCode();
+          }
+        };
+
+    assertTrue(ApiController.eTagOf(List.of(first)).startsWith("W/\""));
+    assertNotEquals(ApiController.eTagOf(List.of(first)), ApiController.eTagOf(List.of(other)));
+    assertNotEquals(
+        ApiController.eTagOf(List.of(first, second)), ApiController.eTagOf(List.of(second, first)));
+  }
 }
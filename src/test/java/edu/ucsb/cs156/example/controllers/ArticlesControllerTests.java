@@ -16,15 +16,18 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.search.ArticleSearchService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -34,6 +37,7 @@ import org.springframework.test.web.servlet.MvcResult;
 public class ArticlesControllerTests extends ControllerTestCase {
   @MockBean ArticleRepository articleRepository;
   @MockBean UserRepository userRepository;
+  @MockBean ArticleSearchService articleSearchService;
 
   // Authorization tests for /api/articles/admin/all
 
@@ -126,6 +130,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // assert
     verify(articleRepository, times(1)).save(eq(article1));
+    verify(articleSearchService, times(1)).articleSaved(article1);
     String expectedJson = mapper.writeValueAsString(article1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -238,6 +243,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
     // assert
     verify(articleRepository, times(1)).findById(67L);
     verify(articleRepository, times(1)).save(editedArticle); // should be saved with correct user
+    verify(articleSearchService, times(1)).articleSaved(editedArticle);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -308,6 +314,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
     // assert
     verify(articleRepository, times(1)).findById(15L);
     verify(articleRepository, times(1)).delete(eq(article1));
+    verify(articleSearchService, times(1)).articleDeleted(15L);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 deleted", json.get("message"));
@@ -333,4 +340,87 @@ public class ArticlesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_articles() throws Exception {
+
+    // arrange
+
+    Article lastArticle = Article.builder().id(8L).build();
+
+    ArrayList<Article> expectedPage = new ArrayList<>();
+    expectedPage.add(lastArticle);
+
+    when(articleRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(articleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(articleRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/articles/search
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/articles/search?q=spring")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_search_articles() throws Exception {
+
+    // arrange
+
+    Article article1 =
+        Article.builder()
+            .id(3L)
+            .title("Spring Boot")
+            .url("http://example.com/3")
+            .explanation("An introduction")
+            .email("user@example.com")
+            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .version(0L)
+            .build();
+
+    when(articleSearchService.search("spring boot", 20)).thenReturn(List.of(article1));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/search?q=spring boot"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleSearchService, times(1)).search("spring boot", 20);
+    assertEquals(
+        mapper.writeValueAsString(List.of(article1)), response.getResponse().getContentAsString());
+    assertEquals(ApiController.eTagOf(List.of(article1)), response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_limit_is_clamped() throws Exception {
+    // act
+    mockMvc.perform(get("/api/articles/search?q=spring&limit=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/articles/search?q=spring&limit=0")).andExpect(status().isOk());
+
+    // assert
+    verify(articleSearchService, times(1)).search("spring", 100);
+    verify(articleSearchService, times(1)).search("spring", 1);
+  }
 }
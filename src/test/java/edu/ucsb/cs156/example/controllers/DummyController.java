@@ -1,12 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-/** This class is used to test ApiController and EntityNotFoundException */
+/**
+ * This class is used to test ApiController, EntityNotFoundException and IllegalArgumentException
+ */
 @RequestMapping("/dummycontroller")
 @RestController
 public class DummyController extends ApiController {
@@ -16,6 +20,23 @@ public class DummyController extends ApiController {
     if (id == 1) {
       return "String1";
     }
+    if (id < 0) {
+      throw new IllegalArgumentException("id must not be negative");
+    }
     throw new EntityNotFoundException(String.class, id);
   }
+
+  private static final List<Long> rows = List.of(1L, 2L, 3L);
+
+  @GetMapping("/all")
+  public ResponseEntity<Iterable<Long>> all(
+      @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit) {
+    return keysetPage(
+        after,
+        limit,
+        0L,
+        () -> rows,
+        (key, page) -> rows.stream().filter(row -> row > key).limit(page.max()).toList(),
+        row -> row);
+  }
 }
@@ -3,29 +3,39 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +48,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean NdjsonExportService ndjsonExportService;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -351,4 +363,235 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_help_requests() throws Exception {
+
+    // arrange
+
+    HelpRequest lastHelpRequest = HelpRequest.builder().id(8L).build();
+
+    ArrayList<HelpRequest> expectedPage = new ArrayList<>();
+    expectedPage.add(lastHelpRequest);
+
+    when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequests/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(helpRequestRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_help_requests() throws Exception {
+    mockMvc.perform(get("/api/helprequests/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_export_help_requests() throws Exception {
+    mockMvc.perform(get("/api/helprequests/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_export_help_requests_as_ndjson() throws Exception {
+
+    // arrange
+
+    HelpRequest row = HelpRequest.builder().id(7L).build();
+    when(helpRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row));
+    doAnswer(
+            invocation -> {
+              Supplier<Stream<HelpRequest>> rows = invocation.getArgument(0);
+              OutputStream out = invocation.getArgument(1);
+              for (HelpRequest r : rows.get().toList()) {
+                out.write((mapper.writeValueAsString(r) + "\n").getBytes());
+              }
+              return 1L;
+            })
+        .when(ndjsonExportService)
+        .export(any(), any());
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/helprequests/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1)).streamAllByOrderByIdAsc();
+    verify(helpRequestRepository, times(0)).findAll();
+    assertEquals(
+        mapper.writeValueAsString(row) + "\n", response.getResponse().getContentAsString());
+  }
+
+  // Tests for /api/helprequests/queue, /claim and /solve
+
+  private HelpRequest unsolved(long id, String requestTime) {
+    return HelpRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId("s22-5pm-3")
+        .tableOrBreakoutRoom("7")
+        .requestTime(LocalDateTime.parse(requestTime))
+        .explanation("Need help with Swagger-ui")
+        .solved(false)
+        .version(0L)
+        .build();
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_the_queue() throws Exception {
+    mockMvc.perform(get("/api/helprequests/queue")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_queue_of_unsolved_help_requests() throws Exception {
+    // arrange
+    List<HelpRequest> queue =
+        List.of(unsolved(2L, "2022-01-03T00:00:00"), unsolved(1L, "2022-01-04T00:00:00"));
+    when(helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc()).thenReturn(queue);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequests/queue")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(queue), response.getResponse().getContentAsString());
+    assertEquals(ApiController.eTagOf(queue), response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_claim() throws Exception {
+    mockMvc.perform(post("/api/helprequests/claim?id=1").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_claim_an_unclaimed_help_request() throws Exception {
+    // arrange
+    HelpRequest claimed = unsolved(1L, "2022-01-03T00:00:00");
+    claimed.setClaimedBy("user@example.org");
+    when(helpRequestRepository.claim(eq(1L), eq("user@example.org"), any())).thenReturn(1);
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.of(claimed));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/claim?id=1").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).claim(eq(1L), eq("user@example.org"), any());
+    assertEquals(mapper.writeValueAsString(claimed), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_claim_a_help_request_that_is_already_claimed() throws Exception {
+    // arrange
+    HelpRequest claimed = unsolved(1L, "2022-01-03T00:00:00");
+    claimed.setClaimedBy("ta@ucsb.edu");
+    when(helpRequestRepository.claim(eq(1L), eq("user@example.org"), any())).thenReturn(0);
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.of(claimed));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/claim?id=1").with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 1 is already claimed or solved", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_claim_a_help_request_that_does_not_exist() throws Exception {
+    // arrange
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/claim?id=1").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 1 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_solve_a_help_request() throws Exception {
+    // arrange
+    HelpRequest solved = unsolved(1L, "2022-01-03T00:00:00");
+    solved.setSolved(true);
+    solved.setClaimedBy("user@example.org");
+    when(helpRequestRepository.solve(eq(1L), eq("user@example.org"), any())).thenReturn(1);
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.of(solved));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/solve?id=1").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).solve(eq(1L), eq("user@example.org"), any());
+    assertEquals(mapper.writeValueAsString(solved), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_solve_a_help_request_claimed_by_someone_else() throws Exception {
+    // arrange
+    HelpRequest claimed = unsolved(1L, "2022-01-03T00:00:00");
+    claimed.setClaimedBy("ta@ucsb.edu");
+    when(helpRequestRepository.solve(eq(1L), eq("user@example.org"), any())).thenReturn(0);
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.of(claimed));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/solve?id=1").with(csrf()))
+            .andExpect(status().isConflict())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        "HelpRequest with id 1 is already solved or claimed by someone else", json.get("message"));
+  }
 }
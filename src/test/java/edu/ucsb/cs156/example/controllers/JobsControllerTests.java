@@ -6,44 +6,73 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({JobService.class, JobLogStreamService.class, JobExecutorConfig.class})
 @AutoConfigureDataJpa
+@TestPropertySource(
+    properties = {
+      "app.jobs.log.flushIntervalMs=60000",
+      "app.jobs.queue.pollIntervalMs=3600000",
+      "app.jobs.logStream.pollIntervalMs=3600000"
+    })
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean NdjsonExportService ndjsonExportService;
+
   @Autowired JobService jobService;
 
   @Autowired ObjectMapper objectMapper;
@@ -173,6 +202,44 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_can_get_the_tail_of_a_log() throws Exception {
+    // Arrange
+    when(jobsRepository.findStatusById(3L)).thenReturn(Optional.of("running"));
+    when(jobLogLinesRepository.findAllByJobIdOrderByLineNumberDesc(3L, Limit.of(2)))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(3L).lineNumber(9).message("tenth").build(),
+                JobLogLine.builder().jobId(3L).lineNumber(8).message("ninth").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?tail=2", 3L))
+        .andExpect(status().isOk())
+        .andExpect(content().string("ninth\ntenth"));
+    verify(jobsRepository, never()).findById(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_can_get_a_range_of_a_log() throws Exception {
+    // Arrange
+    when(jobsRepository.findStatusById(3L)).thenReturn(Optional.of("complete"));
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            3L, 4, Limit.of(2)))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(3L).lineNumber(4).message("fifth").build(),
+                JobLogLine.builder().jobId(3L).lineNumber(5).message("sixth").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?offset=4&limit=2", 3L))
+        .andExpect(status().isOk())
+        .andExpect(content().string("fifth\nsixth"));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -228,28 +295,6 @@ public class JobsControllerTests extends ControllerTestCase {
 
     User user = currentUserService.getUser();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobCompleted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
-
     // act
     MvcResult response =
         mockMvc
@@ -261,64 +306,253 @@ public class JobsControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    assertEquals("running", jobReturned.getStatus());
+    assertEquals("pending", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
-    await()
-        .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+    Job queued = runQueuedJob();
+    await().atMost(10, SECONDS).until(() -> "complete".equals(queued.getStatus()));
+    assertEquals("Hello World! from test job!\nGoodbye from test job!", queued.getLog());
+    assertEquals(user, queued.getCreatedBy());
+    assertEquals(1, queued.getAttempts());
+    verify(jobsRepository, times(3)).save(queued);
+    verify(jobLogLinesRepository, times(1)).saveAll(anyList());
   }
 
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_launch_test_job_that_fails() throws Exception {
 
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=true&sleepMs=4000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    String responseString = response.getResponse().getContentAsString();
+    Job jobReturned = objectMapper.readValue(responseString, Job.class);
+
+    assertEquals("pending", jobReturned.getStatus());
+
+    Job queued = runQueuedJob();
+    await().atMost(10, SECONDS).until(() -> "error".equals(queued.getStatus()));
+    assertEquals("Hello World! from test job!\nFail!", queued.getLog());
+    verify(jobsRepository, times(3)).save(queued);
+    verify(jobLogLinesRepository, times(1)).saveAll(anyList());
+  }
+
+  /** Hands the job saved by the last launch to the queue poller, as the database would. */
+  private Job runQueuedJob() {
+    ArgumentCaptor<Job> saved = ArgumentCaptor.forClass(Job.class);
+    verify(jobsRepository).save(saved.capture());
+    Job queued = saved.getValue();
+    when(jobsRepository.findByStatusOrderByIdAsc(eq("pending"), any(Limit.class)))
+        .thenReturn(List.of(queued));
+    jobService.pollQueue();
+    return queued;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_pending_job() throws Exception {
+
     // arrange
 
-    User user = currentUserService.getUser();
+    Job job = Job.builder().id(3L).status("pending").build();
+    when(jobsRepository.findById(eq(3L))).thenReturn(Optional.of(job));
+    when(jobsRepository.cancelPendingJob(3L)).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=3").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    // assert
+
+    verify(jobsRepository, times(1)).cancelPendingJob(3L);
+    verify(jobsRepository, never()).requestCancel(anyLong());
+    Job returned = objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals("cancelled", returned.getStatus());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_gets_not_found_when_cancelling_a_missing_job() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.findById(eq(4L))).thenReturn(Optional.empty());
 
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=true&sleepMs=4000").with(csrf()))
+            .perform(post("/api/jobs/cancel?id=4").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 4 not found", json.get("message"));
+    verify(jobsRepository, never()).cancelPendingJob(anyLong());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_cancel_a_job() throws Exception {
+    mockMvc.perform(post("/api/jobs/cancel?id=3").with(csrf())).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_jobs() throws Exception {
+
+    // arrange
+
+    Job lastJob = Job.builder().id(8L).build();
+
+    ArrayList<Job> expectedPage = new ArrayList<>();
+    expectedPage.add(lastJob);
+
+    when(jobsRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all?after=7&limit=1"))
             .andExpect(status().isOk())
             .andReturn();
 
+    // assert
+
+    verify(jobsRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(jobsRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
     String responseString = response.getResponse().getContentAsString();
-    Job jobReturned = objectMapper.readValue(responseString, Job.class);
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_export_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_export_jobs_as_ndjson() throws Exception {
+
+    // arrange
+
+    Job row = Job.builder().id(7L).build();
+    when(jobsRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row));
+    doAnswer(
+            invocation -> {
+              Supplier<Stream<Job>> rows = invocation.getArgument(0);
+              OutputStream out = invocation.getArgument(1);
+              for (Job r : rows.get().toList()) {
+                out.write((mapper.writeValueAsString(r) + "\n").getBytes());
+              }
+              return 1L;
+            })
+        .when(ndjsonExportService)
+        .export(any(), any());
+
+    // act
+    MvcResult started =
+        mockMvc.perform(get("/api/jobs/export")).andExpect(request().asyncStarted()).andReturn();
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+
+    // assert
+
+    verify(jobsRepository, times(1)).streamAllByOrderByIdAsc();
+    verify(jobsRepository, times(0)).findAll();
+    assertEquals(
+        mapper.writeValueAsString(row) + "\n", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_the_log_of_a_finished_job() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(5L))).thenReturn(true);
+    when(jobsRepository.findStatusById(5L)).thenReturn(Optional.of("complete"));
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(5L, 0))
+        .thenReturn(
+            List.of(JobLogLine.builder().jobId(5L).lineNumber(1).message("second").build()));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/jobs/logs/5/stream").header("Last-Event-ID", "0"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
 
-    assertEquals("running", jobReturned.getStatus());
+    // assert
+
+    assertEquals(
+        "event:log\nid:1\ndata:second\n\nevent:status\ndata:complete\n\n",
+        response.getResponse().getContentAsString());
+  }
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_starts_from_the_first_line_without_last_event_id() throws Exception {
 
-    await()
-        .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+    // arrange
+
+    when(jobsRepository.existsById(eq(5L))).thenReturn(true);
+    when(jobsRepository.findStatusById(5L)).thenReturn(Optional.of("error"));
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/jobs/logs/5/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+    // assert: once to catch up, and once more before closing the finished stream
+
+    verify(jobLogLinesRepository, times(2))
+        .findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(5L, -1);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_a_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.existsById(eq(6L))).thenReturn(false);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/6/stream"))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 6 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_stream_job_logs() throws Exception {
+    mockMvc.perform(get("/api/jobs/logs/5/stream")).andExpect(status().isForbidden());
   }
 }
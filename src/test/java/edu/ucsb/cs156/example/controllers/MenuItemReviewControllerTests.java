@@ -1,32 +1,48 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewSearchRepository.Cursor;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingStatsService;
+import edu.ucsb.cs156.example.services.NdjsonExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -39,6 +55,12 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean NdjsonExportService ndjsonExportService;
+
+  @MockBean MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+
+  @MockBean MenuItemRatingStatsService menuItemRatingStatsService;
+
   // Authorization tests for /api/menuitemreview/all
 
   @Test
@@ -195,6 +217,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     // assert
     verify(menuItemReviewRepository, times(1)).save(review1);
+    verify(menuItemRatingStatsService, times(1)).reviewAdded(27L, 5);
     String expectedJson = mapper.writeValueAsString(review1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -344,6 +367,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     // assert
     verify(menuItemReviewRepository, times(1)).findById(67L);
     verify(menuItemReviewRepository, times(1)).save(reviewEdited);
+    verify(menuItemRatingStatsService, times(1)).reviewChanged(27L, 5, 28L, 3);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -578,6 +602,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     // assert
     verify(menuItemReviewRepository, times(1)).findById(15L);
     verify(menuItemReviewRepository, times(1)).delete(any());
+    verify(menuItemRatingStatsService, times(1)).reviewRemoved(27L, 5);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -603,4 +628,340 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_menu_item_reviews() throws Exception {
+
+    // arrange
+
+    MenuItemReview lastMenuItemReview = MenuItemReview.builder().id(8L).build();
+
+    ArrayList<MenuItemReview> expectedPage = new ArrayList<>();
+    expectedPage.add(lastMenuItemReview);
+
+    when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(menuItemReviewRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(menuItemReviewRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_menu_item_reviews() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_export_menu_item_reviews() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_export_menu_item_reviews_as_ndjson() throws Exception {
+
+    // arrange
+
+    MenuItemReview row = MenuItemReview.builder().id(7L).build();
+    when(menuItemReviewRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row));
+    doAnswer(
+            invocation -> {
+              Supplier<Stream<MenuItemReview>> rows = invocation.getArgument(0);
+              OutputStream out = invocation.getArgument(1);
+              for (MenuItemReview r : rows.get().toList()) {
+                out.write((mapper.writeValueAsString(r) + "\n").getBytes());
+              }
+              return 1L;
+            })
+        .when(ndjsonExportService)
+        .export(any(), any());
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreview/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn();
+
+    // assert
+
+    verify(menuItemReviewRepository, times(1)).streamAllByOrderByIdAsc();
+    verify(menuItemReviewRepository, times(0)).findAll();
+    assertEquals(
+        mapper.writeValueAsString(row) + "\n", response.getResponse().getContentAsString());
+  }
+
+  // Tests for /api/menuitemreview/stats
+
+  @Test
+  public void logged_out_users_cannot_get_stats() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/stats?itemId=27")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_stats_of_a_reviewed_item() throws Exception {
+    // arrange
+    MenuItemRatingStats stats =
+        MenuItemRatingStats.builder()
+            .itemId(27L)
+            .reviewCount(3)
+            .starsSum(12)
+            .stars3(1)
+            .stars4(1)
+            .stars5(1)
+            .build();
+    when(menuItemRatingStatsRepository.findById(27L)).thenReturn(Optional.of(stats));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/stats?itemId=27"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(27, json.get("itemId"));
+    assertEquals(3, json.get("reviewCount"));
+    assertEquals(12, json.get("starsSum"));
+    assertEquals(4.0, json.get("average"));
+    assertEquals(List.of(0, 0, 0, 1, 1, 1), json.get("histogram"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_gets_empty_stats_for_an_item_with_no_reviews() throws Exception {
+    // arrange
+    when(menuItemRatingStatsRepository.findById(27L)).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/stats?itemId=27"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(0, json.get("reviewCount"));
+    assertEquals(null, json.get("average"));
+    assertEquals(List.of(0, 0, 0, 0, 0, 0), json.get("histogram"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_stats_of_several_items() throws Exception {
+    // arrange
+    MenuItemRatingStats stats27 =
+        MenuItemRatingStats.builder().itemId(27L).reviewCount(1).starsSum(5).stars5(1).build();
+    MenuItemRatingStats stats29 =
+        MenuItemRatingStats.builder().itemId(29L).reviewCount(1).starsSum(2).stars2(1).build();
+    when(menuItemRatingStatsRepository.findAllById(List.of(29L, 28L, 27L, 29L)))
+        .thenReturn(List.of(stats27, stats29));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/stats/bulk?itemIds=29,28,27,29"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String expectedJson =
+        mapper.writeValueAsString(List.of(stats29, MenuItemRatingStats.empty(28L), stats27));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  // Tests for /api/menuitemreview/search
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/search?itemId=27")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_search_menu_item_reviews_with_every_filter() throws Exception {
+    // arrange
+    MenuItemReview review =
+        MenuItemReview.builder()
+            .id(3L)
+            .itemId(27L)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(4)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .comments("Good")
+            .build();
+    when(menuItemReviewRepository.findFiltered(
+            27L,
+            "cgaucho@ucsb.edu",
+            LocalDateTime.parse("2022-01-01T00:00:00"),
+            LocalDateTime.parse("2022-02-01T00:00:00"),
+            3,
+            null,
+            Limit.unlimited()))
+        .thenReturn(List.of(review));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/menuitemreview/search?itemId=27&reviewerEmail=cgaucho@ucsb.edu&reviewedFrom=2022-01-01T00:00:00&reviewedTo=2022-02-01T00:00:00&minStars=3"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(review)), response.getResponse().getContentAsString());
+    assertEquals(null, response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_by_item_pages_by_date_and_id() throws Exception {
+    // arrange
+    Cursor after = new Cursor(LocalDateTime.parse("2022-01-02T12:00:00"), 8L);
+    MenuItemReview review =
+        MenuItemReview.builder()
+            .id(9L)
+            .itemId(27L)
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T12:30:15"))
+            .build();
+    when(menuItemReviewRepository.findFiltered(27L, null, null, null, null, after, Limit.of(1)))
+        .thenReturn(List.of(review));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/search?itemId=27&after=2022-01-02T12:00_8&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1))
+        .findFiltered(27L, null, null, null, null, after, Limit.of(1));
+    assertEquals(
+        mapper.writeValueAsString(List.of(review)), response.getResponse().getContentAsString());
+    assertEquals(
+        "2022-01-03T12:30:15_9",
+        response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_by_item_starts_from_the_first_review_without_a_cursor() throws Exception {
+    // arrange
+    MenuItemReview undated = MenuItemReview.builder().id(4L).itemId(27L).stars(5).build();
+    when(menuItemReviewRepository.findFiltered(27L, null, null, null, null, null, Limit.of(1)))
+        .thenReturn(List.of(undated));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/search?itemId=27&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert: an undated review has an empty date in its cursor
+    assertEquals("_4", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_without_an_item_pages_by_id() throws Exception {
+    // arrange
+    MenuItemReview review = MenuItemReview.builder().id(9L).itemId(27L).stars(5).build();
+    when(menuItemReviewRepository.findFiltered(
+            null, null, null, null, 3, new Cursor(null, 8L), Limit.of(1)))
+        .thenReturn(List.of(review));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/search?minStars=3&after=8&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("9", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void search_cursors_round_trip() {
+    MenuItemReview dated =
+        MenuItemReview.builder()
+            .id(12L)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T12:30:15.123456"))
+            .build();
+    MenuItemReview undated = MenuItemReview.builder().id(13L).build();
+
+    assertEquals(
+        new Cursor(dated.getDateReviewed(), 12L),
+        MenuItemReviewController.parseSearchCursor(
+            MenuItemReviewController.searchCursorOf(dated, true), true));
+    assertEquals(
+        new Cursor(null, 13L),
+        MenuItemReviewController.parseSearchCursor(
+            MenuItemReviewController.searchCursorOf(undated, true), true));
+    assertEquals(
+        new Cursor(null, 12L),
+        MenuItemReviewController.parseSearchCursor(
+            MenuItemReviewController.searchCursorOf(dated, false), false));
+  }
+
+  @Test
+  public void malformed_search_cursors_are_rejected() {
+    for (String[] bad :
+        new String[][] {
+          {"8", "true"}, {"yesterday_8", "true"}, {"2022-01-02T12:00_x", "true"}, {"x", "false"}
+        }) {
+      IllegalArgumentException e =
+          assertThrows(
+              IllegalArgumentException.class,
+              () ->
+                  MenuItemReviewController.parseSearchCursor(bad[0], Boolean.parseBoolean(bad[1])));
+      assertEquals("Malformed cursor: " + bad[0], e.getMessage());
+    }
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_with_a_malformed_cursor_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/search?itemId=27&after=8"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("IllegalArgumentException", json.get("type"));
+    assertEquals("Malformed cursor: 8", json.get("message"));
+    verify(menuItemReviewRepository, never())
+        .findFiltered(any(), any(), any(), any(), any(), any(), any());
+  }
 }
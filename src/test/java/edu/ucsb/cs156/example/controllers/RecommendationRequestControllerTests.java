@@ -1,7 +1,10 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,12 +22,14 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -357,4 +362,178 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_recommendation_requests() throws Exception {
+
+    // arrange
+
+    RecommendationRequest lastRecommendationRequest =
+        RecommendationRequest.builder().id(8L).build();
+
+    ArrayList<RecommendationRequest> expectedPage = new ArrayList<>();
+    expectedPage.add(lastRecommendationRequest);
+
+    when(recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequest/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(recommendationRequestRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(recommendationRequestRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/recommendationrequest/pending
+
+  private RecommendationRequest pending(long id, String dateNeeded) {
+    return RecommendationRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .professorEmail("phtcon@ucsb.edu")
+        .explanation("BS/MS program")
+        .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+        .dateNeeded(ZonedDateTime.parse(dateNeeded))
+        .done(false)
+        .build();
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_pending() throws Exception {
+    mockMvc
+        .perform(get("/api/recommendationrequest/pending?professorEmail=phtcon@ucsb.edu"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_all_pending_requests_of_a_professor() throws Exception {
+    // arrange
+    List<RecommendationRequest> requests =
+        List.of(pending(2L, "2022-02-01T00:00:00Z"), pending(1L, "2022-03-01T00:00:00Z"));
+    when(recommendationRequestRepository.findPending("phtcon@ucsb.edu", Limit.unlimited()))
+        .thenReturn(requests);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequest/pending?professorEmail=phtcon@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(requests), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_first_page_of_pending_requests_needed_before_a_date()
+      throws Exception {
+    // arrange
+    ZonedDateTime before = ZonedDateTime.parse("2022-06-01T00:00:00Z");
+    List<RecommendationRequest> page = List.of(pending(5L, "2022-02-01T00:00:00Z"));
+    when(recommendationRequestRepository.findPendingNeededBefore(
+            "phtcon@ucsb.edu", before, Limit.of(1)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/recommendationrequest/pending?professorEmail=phtcon@ucsb.edu&before=2022-06-01T00:00:00Z&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+    assertEquals(
+        "1643673600000000,5", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page_of_pending_requests() throws Exception {
+    // arrange
+    List<RecommendationRequest> page = List.of(pending(3L, "2022-02-01T00:00:00Z"));
+    when(recommendationRequestRepository.findPendingAfter(
+            "phtcon@ucsb.edu", ZonedDateTime.parse("2022-02-01T00:00Z"), 2L, Limit.of(2)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/recommendationrequest/pending?professorEmail=phtcon@ucsb.edu&after=1643673600000000,2&limit=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+    assertEquals(null, response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_page_of_pending_requests_needed_before_a_date()
+      throws Exception {
+    // arrange
+    ZonedDateTime before = ZonedDateTime.parse("2022-06-01T00:00:00Z");
+    List<RecommendationRequest> page = List.of(pending(3L, "2022-02-01T00:00:00.000001Z"));
+    when(recommendationRequestRepository.findPendingNeededBeforeAfter(
+            "phtcon@ucsb.edu",
+            before,
+            ZonedDateTime.parse("2022-02-01T00:00:00.000001Z"),
+            2L,
+            Limit.of(1)))
+        .thenReturn(page);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/recommendationrequest/pending?professorEmail=phtcon@ucsb.edu&before=2022-06-01T00:00:00Z&after=1643673600000001,2&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+    assertEquals(
+        "1643673600000001,3", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_malformed_pending_cursor_is_a_bad_request() throws Exception {
+    for (String cursor : List.of("7", "1,2,3", "2022-02-01T00:00Z,2", "1643673600000000,x")) {
+      MvcResult response =
+          mockMvc
+              .perform(
+                  get("/api/recommendationrequest/pending")
+                      .param("professorEmail", "phtcon@ucsb.edu")
+                      .param("after", cursor))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+
+      Map<String, Object> json = responseToJson(response);
+      assertEquals("IllegalArgumentException", json.get("type"));
+      assertEquals("Malformed cursor: " + cursor, json.get("message"));
+    }
+    verify(recommendationRequestRepository, never())
+        .findPendingAfter(any(), any(), anyLong(), any());
+  }
 }
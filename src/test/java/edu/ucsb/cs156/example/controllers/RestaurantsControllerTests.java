@@ -8,20 +8,25 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.search.TypeaheadService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -35,6 +40,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean TypeaheadService typeaheadService;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -163,6 +170,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).save(restaurant1);
+    verify(typeaheadService, times(1)).refreshRestaurants();
     String expectedJson = mapper.writeValueAsString(restaurant1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -187,6 +195,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     // assert
     verify(restaurantRepository, times(1)).findById(15L);
     verify(restaurantRepository, times(1)).delete(any());
+    verify(typeaheadService, times(1)).refreshRestaurants();
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -244,6 +253,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     verify(restaurantRepository, times(1)).findById(67L);
     verify(restaurantRepository, times(1))
         .save(restaurantEdited); // should be saved with correct user
+    verify(typeaheadService, times(1)).refreshRestaurants();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -277,4 +287,77 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_restaurants() throws Exception {
+
+    // arrange
+
+    Restaurant lastRestaurant = Restaurant.builder().id(8L).build();
+
+    ArrayList<Restaurant> expectedPage = new ArrayList<>();
+    expectedPage.add(lastRestaurant);
+
+    when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(restaurantRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/restaurants/suggest
+
+  @Test
+  public void logged_out_users_cannot_get_suggestions() throws Exception {
+    mockMvc.perform(get("/api/restaurants/suggest?prefix=s")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_suggestions() throws Exception {
+
+    // arrange
+
+    Restaurant suggestion = Restaurant.builder().id(1L).name("Skyline Grill").build();
+    when(typeaheadService.suggestRestaurants("sk", 10)).thenReturn(List.of(suggestion));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/suggest?prefix=sk"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(typeaheadService, times(1)).suggestRestaurants("sk", 10);
+    assertEquals(
+        mapper.writeValueAsString(List.of(suggestion)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void suggestion_limit_is_clamped() throws Exception {
+    // act
+    mockMvc.perform(get("/api/restaurants/suggest?prefix=s&limit=500")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/restaurants/suggest?prefix=s&limit=-1")).andExpect(status().isOk());
+
+    // assert
+    verify(typeaheadService, times(1)).suggestRestaurants("s", 50);
+    verify(typeaheadService, times(1)).suggestRestaurants("s", 1);
+  }
 }
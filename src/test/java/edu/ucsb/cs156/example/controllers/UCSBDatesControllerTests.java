@@ -2,13 +2,16 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
@@ -18,11 +21,13 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -328,4 +333,165 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_dates() throws Exception {
+
+    // arrange
+
+    UCSBDate lastUCSBDate = UCSBDate.builder().id(8L).build();
+
+    ArrayList<UCSBDate> expectedPage = new ArrayList<>();
+    expectedPage.add(lastUCSBDate);
+
+    when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(ucsbDateRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/ucsbdates/quarter and /api/ucsbdates/quarters
+
+  @Test
+  public void logged_out_users_cannot_get_dates_of_a_quarter() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/quarter?qyyyyq=20241")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_dates_of_a_quarter() throws Exception {
+    // arrange
+    UCSBDate firstDay =
+        UCSBDate.builder()
+            .id(4L)
+            .quarterYYYYQ("20241")
+            .name("first day of classes")
+            .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+            .version(0L)
+            .build();
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20241")).thenReturn(List.of(firstDay));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarter?qyyyyq=20241"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20241");
+    assertEquals(
+        mapper.writeValueAsString(List.of(firstDay)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_dates_of_a_range_of_quarters() throws Exception {
+    // arrange
+    UCSBDate fall = UCSBDate.builder().id(1L).quarterYYYYQ("20234").name("fall").build();
+    UCSBDate winter = UCSBDate.builder().id(2L).quarterYYYYQ("20241").name("winter").build();
+    UCSBDate spring = UCSBDate.builder().id(3L).quarterYYYYQ("20242").name("spring").build();
+    when(ucsbDateRepository.findAllByQuarterYYYYQ(anyString())).thenReturn(List.of());
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20234")).thenReturn(List.of(fall));
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20241")).thenReturn(List.of(winter));
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20242")).thenReturn(List.of(spring));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarters?from=20233&to=20242"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(4)).findAllByQuarterYYYYQ(anyString());
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20233");
+    assertEquals(
+        mapper.writeValueAsString(List.of(fall, winter, spring)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_backwards_range_of_quarters_is_empty() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarters?from=20242&to=20241"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(ucsbDateRepository, times(0)).findAllByQuarterYYYYQ(anyString());
+    assertEquals("[]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_quarter_not_in_yyyyq_format_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarter?qyyyyq=2024F"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        "Quarter must be in the format YYYYQ, with Q from 1 to 4",
+        responseToJson(response).get("message"));
+    verify(ucsbDateRepository, times(0)).findAllByQuarterYYYYQ(anyString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_range_not_in_yyyyq_format_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarters?from=20241&to=20245"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        "Quarter must be in the format YYYYQ, with Q from 1 to 4",
+        responseToJson(response).get("message"));
+    verify(ucsbDateRepository, times(0)).findAllByQuarterYYYYQ(anyString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_range_of_more_than_forty_quarters_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarters?from=20001&to=20101"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("A range may span at most 40 quarters", responseToJson(response).get("message"));
+    verify(ucsbDateRepository, times(0)).findAllByQuarterYYYYQ(anyString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_range_of_forty_quarters_is_allowed() throws Exception {
+    when(ucsbDateRepository.findAllByQuarterYYYYQ(anyString())).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/ucsbdates/quarters?from=20001&to=20094")).andExpect(status().isOk());
+
+    verify(ucsbDateRepository, times(40)).findAllByQuarterYYYYQ(anyString());
+    verify(ucsbDateRepository).findAllByQuarterYYYYQ("20001");
+    verify(ucsbDateRepository).findAllByQuarterYYYYQ("20094");
+  }
 }
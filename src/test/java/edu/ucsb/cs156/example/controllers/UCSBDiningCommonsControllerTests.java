@@ -8,20 +8,25 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -35,6 +40,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean DiningCommonsLocator diningCommonsLocator;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -109,6 +116,75 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_by_id_returns_304_when_etag_matches() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons commons =
+        UCSBDiningCommons.builder().name("Carrillo").code("carrillo").version(3L).build();
+
+    when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(commons));
+
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons?code=carrillo"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons?code=carrillo").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+
+    assertEquals("", response.getResponse().getContentAsString());
+    assertEquals(etag, response.getResponse().getHeader("ETag"));
+
+    commons.setVersion(4L);
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons?code=carrillo").header("If-None-Match", etag))
+        .andExpect(status().isOk());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_returns_304_when_etag_matches() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons carrillo =
+        UCSBDiningCommons.builder().name("Carrillo").code("carrillo").version(0L).build();
+    ArrayList<UCSBDiningCommons> commons = new ArrayList<>(Arrays.asList(carrillo));
+
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(commons);
+
+    String etag =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    commons.add(UCSBDiningCommons.builder().name("Ortega").code("ortega").version(0L).build());
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+        .andExpect(status().isOk());
+  }
+
   @WithMockUser(roles = {"USER"})
   @Test
   public void test_that_logged_in_user_can_get_by_id_when_the_id_does_not_exist() throws Exception {
@@ -206,6 +282,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+    verify(diningCommonsLocator, times(1)).refresh();
     String expectedJson = mapper.writeValueAsString(ortega);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -239,6 +316,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
     verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    verify(diningCommonsLocator, times(1)).refresh();
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -311,6 +389,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
+    verify(diningCommonsLocator, times(1)).refresh();
     verify(ucsbDiningCommonsRepository, times(1))
         .save(carrilloEdited); // should be saved with updated info
     String responseString = response.getResponse().getContentAsString();
@@ -354,4 +433,116 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_commons() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons lastUCSBDiningCommons = UCSBDiningCommons.builder().code("ortega").build();
+
+    ArrayList<UCSBDiningCommons> expectedPage = new ArrayList<>();
+    expectedPage.add(lastUCSBDiningCommons);
+
+    when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(
+            eq("de-la-guerra"), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all?after=de-la-guerra&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsRepository, times(1))
+        .findByCodeGreaterThanOrderByCodeAsc(eq("de-la-guerra"), eq(Limit.of(1)));
+    verify(ucsbDiningCommonsRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("ortega", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/ucsbdiningcommons/nearest
+
+  @Test
+  public void logged_out_users_cannot_get_nearest() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_nearest_commons() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommons ortega = UCSBDiningCommons.builder().name("Ortega").code("ortega").build();
+    List<DiningCommonsLocator.Nearby> nearby =
+        List.of(new DiningCommonsLocator.Nearby(ortega, 0.25));
+
+    when(diningCommonsLocator.nearest(34.41, -119.85, 3)).thenReturn(nearby);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(diningCommonsLocator, times(1)).nearest(34.41, -119.85, 3);
+    assertEquals(mapper.writeValueAsString(nearby), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_caps_k() throws Exception {
+
+    // arrange
+
+    when(diningCommonsLocator.nearest(34.41, -119.85, 20)).thenReturn(List.of());
+
+    // act
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=500"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=2"))
+        .andExpect(status().isOk());
+
+    // assert
+
+    verify(diningCommonsLocator, times(1)).nearest(34.41, -119.85, 20);
+    verify(diningCommonsLocator, times(1)).nearest(34.41, -119.85, 2);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_rejects_an_invalid_query_with_a_bad_request() throws Exception {
+
+    // arrange
+
+    when(diningCommonsLocator.nearest(34.41, -119.85, 0))
+        .thenThrow(new IllegalArgumentException("k must be at least 1"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("IllegalArgumentException", json.get("type"));
+    assertEquals("k must be at least 1", json.get("message"));
+  }
 }
@@ -18,12 +18,15 @@ import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -315,4 +318,169 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_menu_items() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommonsMenuItem lastUCSBDiningCommonsMenuItem =
+        UCSBDiningCommonsMenuItem.builder().id(8L).build();
+
+    ArrayList<UCSBDiningCommonsMenuItem> expectedPage = new ArrayList<>();
+    expectedPage.add(lastUCSBDiningCommonsMenuItem);
+
+    when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(
+            eq(7L), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/UCSBDiningCommonsMenuItem/all?after=7&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(eq(7L), eq(Limit.of(1)));
+    verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("8", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/UCSBDiningCommonsMenuItem/bycommons
+
+  @Test
+  public void logged_out_users_cannot_get_menu_items_by_commons() throws Exception {
+    mockMvc
+        .perform(get("/api/UCSBDiningCommonsMenuItem/bycommons?code=ortega"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_menu_items_of_a_commons_grouped_by_station() throws Exception {
+
+    // arrange
+
+    UCSBDiningCommonsMenuItem unassigned =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(4L)
+            .diningCommonsCode("ortega")
+            .name("Water")
+            .build();
+    UCSBDiningCommonsMenuItem pasta =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(1L)
+            .diningCommonsCode("ortega")
+            .name("BakedPestoPastawithChicken")
+            .station("EntreeSpecials")
+            .version(0L)
+            .build();
+    UCSBDiningCommonsMenuItem tacos =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(3L)
+            .diningCommonsCode("ortega")
+            .name("Tacos")
+            .station("EntreeSpecials")
+            .version(0L)
+            .build();
+    UCSBDiningCommonsMenuItem salad =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(2L)
+            .diningCommonsCode("ortega")
+            .name("CaesarSalad")
+            .station("Greens")
+            .version(0L)
+            .build();
+
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAscIdAsc(
+            "ortega"))
+        .thenReturn(List.of(unassigned, pasta, tacos, salad));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/UCSBDiningCommonsMenuItem/bycommons?code=ortega"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findByDiningCommonsCodeOrderByStationAscNameAscIdAsc("ortega");
+    verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+    LinkedHashMap<String, List<UCSBDiningCommonsMenuItem>> expected = new LinkedHashMap<>();
+    expected.put("", List.of(unassigned));
+    expected.put("EntreeSpecials", List.of(pasta, tacos));
+    expected.put("Greens", List.of(salad));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void stations_are_in_alphabetical_order_whatever_the_database_does_with_nulls()
+      throws Exception {
+
+    // arrange
+
+    UCSBDiningCommonsMenuItem unassigned =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(4L)
+            .diningCommonsCode("ortega")
+            .name("Water")
+            .build();
+    UCSBDiningCommonsMenuItem pasta =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(1L)
+            .diningCommonsCode("ortega")
+            .name("BakedPestoPastawithChicken")
+            .station("EntreeSpecials")
+            .version(0L)
+            .build();
+    UCSBDiningCommonsMenuItem tacos =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(3L)
+            .diningCommonsCode("ortega")
+            .name("Tacos")
+            .station("EntreeSpecials")
+            .version(0L)
+            .build();
+    UCSBDiningCommonsMenuItem salad =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(2L)
+            .diningCommonsCode("ortega")
+            .name("CaesarSalad")
+            .station("Greens")
+            .version(0L)
+            .build();
+
+    // Postgres sorts null stations last, H2 first
+    when(ucsbDiningCommonsMenuItemRepository.findByDiningCommonsCodeOrderByStationAscNameAscIdAsc(
+            "ortega"))
+        .thenReturn(List.of(pasta, tacos, salad, unassigned));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/UCSBDiningCommonsMenuItem/bycommons?code=ortega"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .findByDiningCommonsCodeOrderByStationAscNameAscIdAsc("ortega");
+    verify(ucsbDiningCommonsMenuItemRepository, times(0)).findAll();
+    LinkedHashMap<String, List<UCSBDiningCommonsMenuItem>> expected = new LinkedHashMap<>();
+    expected.put("", List.of(unassigned));
+    expected.put("EntreeSpecials", List.of(pasta, tacos));
+    expected.put("Greens", List.of(salad));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
 }
@@ -17,15 +17,18 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.search.TypeaheadService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +41,8 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean TypeaheadService typeaheadService;
+
   // Authorization tests for /api/ucsborganization/all
 
   @Test
@@ -126,6 +131,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbOrganizationRepository, times(1)).save(zpr);
+    verify(typeaheadService, times(1)).refreshOrganizations();
     String expectedJson = mapper.writeValueAsString(zpr);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -237,6 +243,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     verify(ucsbOrganizationRepository, times(1)).findById("SKY");
     verify(ucsbOrganizationRepository, times(1))
         .save(skyEdited); // should be saved with updated info
+    verify(typeaheadService, times(1)).refreshOrganizations();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -301,6 +308,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbOrganizationRepository, times(1)).findById("SKY");
     verify(ucsbOrganizationRepository, times(1)).delete(any());
+    verify(typeaheadService, times(1)).refreshOrganizations();
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id SKY deleted", json.get("message"));
@@ -326,4 +334,84 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id KRC not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_keyset_page_of_organizations() throws Exception {
+
+    // arrange
+
+    UCSBOrganization lastUCSBOrganization = UCSBOrganization.builder().orgCode("ZPR").build();
+
+    ArrayList<UCSBOrganization> expectedPage = new ArrayList<>();
+    expectedPage.add(lastUCSBOrganization);
+
+    when(ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(
+            eq("SKY"), eq(Limit.of(1))))
+        .thenReturn(expectedPage);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/all?after=SKY&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(ucsbOrganizationRepository, times(1))
+        .findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("SKY"), eq(Limit.of(1)));
+    verify(ucsbOrganizationRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(expectedPage);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals("ZPR", response.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  // Tests for /api/ucsborganization/suggest
+
+  @Test
+  public void logged_out_users_cannot_get_suggestions() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/suggest?prefix=s")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_suggestions() throws Exception {
+
+    // arrange
+
+    UCSBOrganization suggestion =
+        UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("SKYDIVING CLUB").build();
+    when(typeaheadService.suggestOrganizations("sk", 10)).thenReturn(List.of(suggestion));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/suggest?prefix=sk"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(typeaheadService, times(1)).suggestOrganizations("sk", 10);
+    assertEquals(
+        mapper.writeValueAsString(List.of(suggestion)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void suggestion_limit_is_clamped() throws Exception {
+    // act
+    mockMvc
+        .perform(get("/api/ucsborganization/suggest?prefix=s&limit=500"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/ucsborganization/suggest?prefix=s&limit=-1"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(typeaheadService, times(1)).suggestOrganizations("s", 50);
+    verify(typeaheadService, times(1)).suggestOrganizations("s", 1);
+  }
 }
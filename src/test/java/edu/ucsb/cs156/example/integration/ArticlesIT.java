@@ -1,11 +1,13 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.controllers.ApiController;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
@@ -13,6 +15,7 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -108,4 +111,99 @@ public class ArticlesIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_walk_articles_with_keyset_paging() throws Exception {
+    // arrange
+
+    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    for (String title : List.of("First-Article", "Second-Article", "Third-Article")) {
+      articleRepository.save(
+          Article.builder()
+              .title(title)
+              .url("http://example.com/" + title)
+              .explanation("explanation")
+              .email("user@example.com")
+              .dateAdded(ldt1)
+              .build());
+    }
+
+    // act
+    MvcResult firstPage =
+        mockMvc.perform(get("/api/articles/all?limit=2")).andExpect(status().isOk()).andReturn();
+    String cursor = firstPage.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER);
+    MvcResult lastPage =
+        mockMvc
+            .perform(get("/api/articles/all?limit=2&after=" + cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Article[] first =
+        mapper.readValue(firstPage.getResponse().getContentAsString(), Article[].class);
+    Article[] last = mapper.readValue(lastPage.getResponse().getContentAsString(), Article[].class);
+    assertEquals("2", cursor);
+    assertEquals(2, first.length);
+    assertEquals("Second-Article", first[1].getTitle());
+    assertEquals(1, last.length);
+    assertEquals("Third-Article", last[0].getTitle());
+    assertNull(lastPage.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void search_follows_posts_updates_and_deletes() throws Exception {
+    // act
+    mockMvc
+        .perform(
+            post("/api/articles/post?title=Caching with Caffeine&url=http://example.com/1&explanation=Spring cache abstraction&email=user@example.com&dateAdded=2022-01-03T00:00:00")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            post("/api/articles/post?title=React hooks&url=http://example.com/2&explanation=State in components&email=user@example.com&dateAdded=2022-01-04T00:00:00")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("Caching with Caffeine"), searchTitles("caffeine"));
+    assertEquals(List.of(), searchTitles("vue"));
+
+    // act
+    Article edited =
+        Article.builder()
+            .title("Vue components")
+            .url("http://example.com/2")
+            .explanation("State in components")
+            .email("user@example.com")
+            .dateAdded(LocalDateTime.parse("2022-01-04T00:00:00"))
+            .build();
+    mockMvc
+        .perform(
+            put("/api/articles?id=2")
+                .contentType("application/json")
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/api/articles?id=1").with(csrf())).andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("Vue components"), searchTitles("vue caffeine"));
+    assertEquals(List.of(), searchTitles("react"));
+  }
+
+  private List<String> searchTitles(String q) throws Exception {
+    String json =
+        mockMvc
+            .perform(get("/api/articles/search").param("q", q))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return List.of(mapper.readValue(json, Article[].class)).stream()
+        .map(Article::getTitle)
+        .toList();
+  }
 }
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -13,12 +14,15 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -27,6 +31,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -109,4 +114,81 @@ public class HelpRequestIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  private HelpRequest saveRequest(String requestTime, boolean solved) {
+    return helpRequestRepository.save(
+        HelpRequest.builder()
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-3")
+            .tableOrBreakoutRoom("7")
+            .requestTime(LocalDateTime.parse(requestTime))
+            .explanation("Need help")
+            .solved(solved)
+            .build());
+  }
+
+  /** Claims and solves are recorded under the email of a TA logged in with OAuth. */
+  private RequestPostProcessor ta() {
+    return oauth2Login()
+        .attributes(
+            attributes ->
+                attributes.putAll(
+                    Map.of("sub", "ta-sub", "email", "ta@ucsb.edu", "email_verified", true)))
+        .authorities(
+            new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void the_queue_lists_unsolved_requests_until_they_are_claimed_and_solved()
+      throws Exception {
+    // arrange
+    HelpRequest later = saveRequest("2022-01-03T12:00:00", false);
+    saveRequest("2022-01-01T12:00:00", true);
+    HelpRequest earlier = saveRequest("2022-01-02T12:00:00", false);
+
+    // act
+    String queue =
+        mockMvc
+            .perform(get("/api/helprequests/queue"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(List.of(earlier, later)), queue);
+
+    // act: claim twice, then solve
+    mockMvc
+        .perform(
+            post("/api/helprequests/claim")
+                .param("id", "" + earlier.getId())
+                .with(ta())
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.claimedBy").value("ta@ucsb.edu"));
+    mockMvc
+        .perform(
+            post("/api/helprequests/claim")
+                .param("id", "" + earlier.getId())
+                .with(ta())
+                .with(csrf()))
+        .andExpect(status().isConflict());
+    mockMvc
+        .perform(
+            post("/api/helprequests/solve")
+                .param("id", "" + earlier.getId())
+                .with(ta())
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.solved").value(true));
+
+    // assert
+    mockMvc
+        .perform(get("/api/helprequests/queue"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].id").value(later.getId()));
+  }
 }
@@ -0,0 +1,209 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobsIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired JobService jobService;
+
+  @Autowired JobRetentionService jobRetentionService;
+
+  @MockitoBean UserRepository userRepository;
+
+  @Test
+  public void job_log_lines_are_stored_separately_and_deleted_with_the_job() throws Exception {
+    // arrange
+    Job job = jobsRepository.save(Job.builder().status("running").build());
+    JobContext ctx = new JobContext(jobsRepository, jobLogLinesRepository, job);
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+    ctx.log("third");
+
+    // assert
+    assertEquals("first\nsecond\nthird", jobService.getJobLogs(job.getId()));
+    assertEquals("second\nthird", jobService.getJobLogs(job.getId(), null, null, 2));
+    assertEquals("second", jobService.getJobLogs(job.getId(), 1, 1, null));
+    assertEquals(3, jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(job.getId()).size());
+
+    jobsRepository.deleteById(job.getId());
+    assertEquals(0, jobLogLinesRepository.count());
+  }
+
+  @Test
+  public void pending_jobs_are_claimed_and_run_by_the_queue_poller() throws Exception {
+    // arrange
+    Job job =
+        jobsRepository.save(
+            Job.builder()
+                .status("pending")
+                .payload("{\"type\":\"TestJob\",\"fail\":false,\"sleepMs\":0}")
+                .build());
+
+    // act
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "complete".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+
+    // assert
+    Job done = jobsRepository.findById(job.getId()).get();
+    assertEquals(1, done.getAttempts());
+    assertNotNull(done.getClaimedBy());
+    assertNotNull(done.getHeartbeatAt());
+    assertEquals(
+        "Hello World! from test job!\nGoodbye from test job!", jobService.getJobLogs(job.getId()));
+  }
+
+  @Test
+  public void jobs_left_running_by_a_stopped_instance_are_recovered() throws Exception {
+    // arrange: a job from before the queue existed, stuck in "running" with no heartbeat
+    Job job = jobsRepository.save(Job.builder().status("running").build());
+
+    // act
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "error".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+
+    // assert
+    Job recovered = jobsRepository.findById(job.getId()).get();
+    assertTrue(recovered.getLog().startsWith("Job cannot be resumed: "), recovered.getLog());
+  }
+
+  @Test
+  public void a_requeued_job_that_had_logged_lines_runs_to_completion() throws Exception {
+    // arrange: a job stuck in "running" by a stopped instance, after logging some lines and
+    // receiving a cancel request
+    Job job =
+        jobsRepository.save(
+            Job.builder()
+                .status("running")
+                .attempts(1)
+                .progressPercent(30)
+                .cancelRequested(true)
+                .payload("{\"type\":\"TestJob\",\"fail\":false,\"sleepMs\":0}")
+                .build());
+    JobContext firstAttempt = new JobContext(jobsRepository, jobLogLinesRepository, job);
+    firstAttempt.log("first attempt");
+    firstAttempt.log("interrupted");
+
+    // act
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "complete".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+
+    // assert
+    Job done = jobsRepository.findById(job.getId()).get();
+    assertEquals(2, done.getAttempts());
+    assertEquals(100, done.getProgressPercent());
+    assertFalse(done.getCancelRequested());
+    assertEquals(
+        "first attempt\ninterrupted\nHello World! from test job!\nGoodbye from test job!",
+        jobService.getJobLogs(job.getId()));
+  }
+
+  @Test
+  public void a_running_job_can_be_cancelled() throws Exception {
+    // arrange
+    Job job =
+        jobsRepository.save(
+            Job.builder()
+                .status("pending")
+                .payload("{\"type\":\"TestJob\",\"fail\":false,\"sleepMs\":20000}")
+                .build());
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "running".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+
+    // act
+    jobService.cancelJob(jobsRepository.findById(job.getId()).get());
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "cancelled".equals(jobsRepository.findById(job.getId()).get().getStatus()));
+    Job cancelled = jobsRepository.findById(job.getId()).get();
+    assertTrue(cancelled.getCancelRequested());
+    assertNotEquals(Integer.valueOf(100), cancelled.getProgressPercent());
+    assertTrue(jobService.getJobLogs(job.getId()).endsWith("Job cancelled"));
+  }
+
+  @Test
+  public void retention_prunes_the_oldest_finished_jobs_and_their_log_lines() throws Exception {
+    // arrange
+    Job oldest = jobsRepository.save(Job.builder().status("complete").build());
+    new JobContext(jobsRepository, jobLogLinesRepository, oldest).log("old");
+    Job older = jobsRepository.save(Job.builder().status("complete").build());
+    Job newest = jobsRepository.save(Job.builder().status("complete").build());
+    Job running = jobsRepository.save(Job.builder().status("running").build());
+    ReflectionTestUtils.setField(jobRetentionService, "maxRowsPerStatus", 1);
+
+    // act
+    int pruned = jobRetentionService.pruneJobs();
+
+    // assert
+    assertEquals(2, pruned);
+    assertFalse(jobsRepository.existsById(oldest.getId()));
+    assertFalse(jobsRepository.existsById(older.getId()));
+    assertTrue(jobsRepository.existsById(newest.getId()));
+    assertTrue(jobsRepository.existsById(running.getId()));
+    assertNotNull(jobsRepository.findById(newest.getId()).get().getUpdatedAt());
+    assertEquals(0, jobLogLinesRepository.count());
+  }
+
+  @Test
+  public void requeueing_a_stale_job_updates_its_updated_at() throws Exception {
+    // arrange: a job claimed by an instance that is still alive, so only this requeue moves it
+    Job job =
+        jobsRepository.save(
+            Job.builder().status("claimed").heartbeatAt(ZonedDateTime.now()).build());
+    ZonedDateTime saved = jobsRepository.findById(job.getId()).get().getUpdatedAt();
+    Thread.sleep(50);
+
+    // act
+    int requeued = jobsRepository.requeueStaleJobs(ZonedDateTime.now().plusMinutes(1));
+
+    // assert
+    assertEquals(1, requeued);
+    assertTrue(
+        jobsRepository.findById(job.getId()).get().getUpdatedAt().isAfter(saved),
+        "updatedAt should be later than " + saved);
+  }
+}
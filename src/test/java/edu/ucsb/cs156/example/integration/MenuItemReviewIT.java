@@ -13,6 +13,9 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -102,4 +105,254 @@ public class MenuItemReviewIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_export_menu_item_reviews_as_ndjson() throws Exception {
+    // arrange
+
+    MenuItemReview first =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(27L)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-02T12:00:00"))
+                .comments("Great burrito, best I've ever had!")
+                .build());
+    MenuItemReview second =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(28L)
+                .reviewerEmail("ldelplaya@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.parse("2022-01-03T12:00:00"))
+                .comments("Soggy fries")
+                .build());
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreview/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    String expected =
+        mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+    assertEquals(expected, response.getResponse().getContentAsString());
+  }
+
+  private Map<String, Object> stats(long itemId) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/stats").param("itemId", Long.toString(itemId)))
+            .andExpect(status().isOk())
+            .andReturn();
+    return mapper.readValue(response.getResponse().getContentAsString(), Map.class);
+  }
+
+  private MenuItemReview legacyReview(int stars) {
+    // saved behind the controller's back, as reviews were before stars were validated
+    return menuItemReviewRepository.save(
+        MenuItemReview.builder()
+            .itemId(29L)
+            .reviewerEmail("legacy@ucsb.edu")
+            .stars(stars)
+            .dateReviewed(LocalDateTime.parse("2021-05-01T12:00:00"))
+            .comments("From before validation")
+            .build());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void legacy_reviews_with_out_of_range_stars_can_be_edited_and_deleted() throws Exception {
+    // arrange
+    MenuItemReview edited = legacyReview(9);
+    MenuItemReview deleted = legacyReview(-2);
+    edited.setStars(4);
+
+    // act
+    mockMvc
+        .perform(
+            put("/api/menuitemreview?id=" + edited.getId())
+                .contentType("application/json")
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(delete("/api/menuitemreview?id=" + deleted.getId()).with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert: only the edited rating is counted
+    Map<String, Object> stats29 = stats(29L);
+    assertEquals(1, stats29.get("reviewCount"));
+    assertEquals(4.0, stats29.get("average"));
+    assertEquals(List.of(0, 0, 0, 0, 1, 0), stats29.get("histogram"));
+    assertEquals(List.of(edited.getId()), ids(menuItemReviewRepository.findAll()));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void rating_stats_follow_review_posts_edits_and_deletes() throws Exception {
+    // act: two reviews of item 27
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/post?itemId=27&reviewerEmail=cgaucho@ucsb.edu&stars=5&dateReviewed=2022-01-02T12:00:00&comments=Great")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/post?itemId=27&reviewerEmail=ldelplaya@ucsb.edu&stars=2&dateReviewed=2022-01-03T12:00:00&comments=Soggy")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    Map<String, Object> stats27 = stats(27L);
+    assertEquals(2, stats27.get("reviewCount"));
+    assertEquals(3.5, stats27.get("average"));
+    assertEquals(List.of(0, 0, 1, 0, 0, 1), stats27.get("histogram"));
+
+    // act: move the second review to item 28 with 4 stars, then delete the first
+    MenuItemReview moved =
+        MenuItemReview.builder()
+            .itemId(28L)
+            .reviewerEmail("ldelplaya@ucsb.edu")
+            .stars(4)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T12:00:00"))
+            .comments("Better today")
+            .build();
+    mockMvc
+        .perform(
+            put("/api/menuitemreview?id=2")
+                .contentType("application/json")
+                .content(mapper.writeValueAsString(moved))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(delete("/api/menuitemreview?id=1").with(csrf())).andExpect(status().isOk());
+
+    // assert
+    stats27 = stats(27L);
+    assertEquals(0, stats27.get("reviewCount"));
+    assertEquals(null, stats27.get("average"));
+    Map<String, Object> stats28 = stats(28L);
+    assertEquals(1, stats28.get("reviewCount"));
+    assertEquals(4.0, stats28.get("average"));
+    assertEquals(List.of(0, 0, 0, 0, 1, 0), stats28.get("histogram"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void reviews_can_be_searched_by_item_reviewer_date_and_stars() throws Exception {
+    // arrange
+    MenuItemReview early =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(27L)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-02T12:00:00"))
+                .comments("Great")
+                .build());
+    MenuItemReview late =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(27L)
+                .reviewerEmail("ldelplaya@ucsb.edu")
+                .stars(2)
+                .dateReviewed(LocalDateTime.parse("2022-02-02T12:00:00"))
+                .comments("Soggy")
+                .build());
+    MenuItemReview otherItem =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(28L)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-01-05T12:00:00"))
+                .comments("Fine")
+                .build());
+
+    // act and assert
+    assertEquals(mapper.writeValueAsString(List.of(early, late)), search("itemId=27"));
+    assertEquals(
+        mapper.writeValueAsString(List.of(early, otherItem)),
+        search("reviewerEmail=cgaucho@ucsb.edu"));
+    assertEquals(
+        mapper.writeValueAsString(List.of(early, otherItem)),
+        search("reviewedFrom=2022-01-02T12:00:00&reviewedTo=2022-02-02T12:00:00"));
+    assertEquals(
+        mapper.writeValueAsString(List.of(otherItem)), search("minStars=3&after=" + early.getId()));
+    assertEquals(
+        mapper.writeValueAsString(List.of(late)),
+        search(
+            "itemId=27&minStars=1&limit=1&after=" + early.getDateReviewed() + "_" + early.getId()));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void reviews_of_an_item_are_paged_by_date_with_undated_reviews_last() throws Exception {
+    // arrange: saved out of date order, one without a date
+    MenuItemReview undated =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder().itemId(30L).reviewerEmail("a@ucsb.edu").stars(3).build());
+    MenuItemReview late =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(30L)
+                .reviewerEmail("b@ucsb.edu")
+                .stars(4)
+                .dateReviewed(LocalDateTime.parse("2022-03-01T08:00:00"))
+                .build());
+    MenuItemReview early =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(30L)
+                .reviewerEmail("c@ucsb.edu")
+                .stars(5)
+                .dateReviewed(LocalDateTime.parse("2022-01-01T08:00:00"))
+                .build());
+
+    // act: walk the pages one review at a time
+    List<String> pages = new ArrayList<>();
+    String cursor = null;
+    do {
+      MvcResult response =
+          mockMvc
+              .perform(
+                  get(
+                      "/api/menuitemreview/search?itemId=30&limit=1"
+                          + (cursor == null ? "" : "&after=" + cursor)))
+              .andExpect(status().isOk())
+              .andReturn();
+      pages.add(response.getResponse().getContentAsString());
+      cursor = response.getResponse().getHeader("X-Next-Cursor");
+    } while (cursor != null);
+
+    // assert
+    assertEquals(
+        List.of(
+            mapper.writeValueAsString(List.of(early)),
+            mapper.writeValueAsString(List.of(late)),
+            mapper.writeValueAsString(List.of(undated)),
+            "[]"),
+        pages);
+  }
+
+  private String search(String query) throws Exception {
+    return mockMvc
+        .perform(get("/api/menuitemreview/search?" + query))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+  private static List<Long> ids(Iterable<MenuItemReview> reviews) {
+    List<Long> ids = new ArrayList<>();
+    reviews.forEach(review -> ids.add(review.getId()));
+    return ids;
+  }
 }
@@ -1,11 +1,13 @@
 package edu.ucsb.cs156.example.integration;
 
+import static org.hamcrest.Matchers.contains;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.controllers.ApiController;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
@@ -114,4 +116,58 @@ public class RecommendationRequestsIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  private long savePending(String professorEmail, String dateNeeded, boolean done) {
+    return recommendationRequestRepository
+        .save(
+            RecommendationRequest.builder()
+                .requesterEmail("requester@gmail.com")
+                .professorEmail(professorEmail)
+                .explanation("Need a recommendation for grad school")
+                .dateRequested(ZonedDateTime.parse("2022-01-03T00:00:00Z"))
+                .dateNeeded(ZonedDateTime.parse(dateNeeded))
+                .done(done)
+                .build())
+        .getId();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void pending_requests_are_paged_in_deadline_order() throws Exception {
+    // arrange
+    long feb = savePending("professor@gmail.com", "2022-02-01T00:00:00Z", false);
+    long mar = savePending("professor@gmail.com", "2022-03-01T00:00:00Z", false);
+    long febToo = savePending("professor@gmail.com", "2022-02-01T00:00:00Z", false);
+    savePending("professor@gmail.com", "2022-01-15T00:00:00Z", true);
+    savePending("other@gmail.com", "2022-01-15T00:00:00Z", false);
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(
+                get("/api/recommendationrequest/pending")
+                    .param("professorEmail", "professor@gmail.com")
+                    .param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id").value(contains((int) feb, (int) febToo)))
+            .andReturn();
+    String cursor = first.getResponse().getHeader(ApiController.NEXT_CURSOR_HEADER);
+
+    // assert
+    mockMvc
+        .perform(
+            get("/api/recommendationrequest/pending")
+                .param("professorEmail", "professor@gmail.com")
+                .param("limit", "2")
+                .param("after", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].id").value(contains((int) mar)));
+    mockMvc
+        .perform(
+            get("/api/recommendationrequest/pending")
+                .param("professorEmail", "professor@gmail.com")
+                .param("before", "2022-02-15T00:00:00Z"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].id").value(contains((int) feb, (int) febToo)));
+  }
 }
@@ -0,0 +1,159 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UCSBDatesIT {
+  @Autowired public CurrentUserService currentUserService;
+
+  @Autowired public GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private String fetch(String url) throws Exception {
+    return mockMvc
+        .perform(get(url))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void dates_of_a_quarter_are_cached_until_a_date_is_posted() throws Exception {
+    // arrange
+    UCSBDate winter =
+        ucsbDateRepository.save(
+            UCSBDate.builder()
+                .quarterYYYYQ("20241")
+                .name("first day of classes")
+                .localDateTime(LocalDateTime.parse("2024-01-08T00:00:00"))
+                .build());
+    UCSBDate spring =
+        ucsbDateRepository.save(
+            UCSBDate.builder()
+                .quarterYYYYQ("20242")
+                .name("first day of classes")
+                .localDateTime(LocalDateTime.parse("2024-04-01T00:00:00"))
+                .build());
+
+    // act: fill the cache, then save a date behind the controller's back
+    String first = fetch("/api/ucsbdates/quarter?qyyyyq=20241");
+    ucsbDateRepository.save(
+        UCSBDate.builder()
+            .quarterYYYYQ("20241")
+            .name("last day of classes")
+            .localDateTime(LocalDateTime.parse("2024-03-15T00:00:00"))
+            .build());
+
+    // assert
+    assertEquals(mapper.writeValueAsString(List.of(winter)), first);
+    assertEquals(first, fetch("/api/ucsbdates/quarter?qyyyyq=20241"));
+    assertEquals(
+        mapper.writeValueAsString(List.of(winter, spring)),
+        fetch("/api/ucsbdates/quarters?from=20241&to=20242"));
+
+    // act: a write through the controller evicts the cache
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/post?quarterYYYYQ=20242&name=finals&localDateTime=2024-06-08T00:00:00")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    List<?> dates =
+        mapper.readValue(fetch("/api/ucsbdates/quarters?from=20241&to=20242"), List.class);
+    assertEquals(4, dates.size());
+  }
+
+  private List<String> namesOf(String json) throws Exception {
+    return List.of(mapper.readValue(json, UCSBDate[].class)).stream()
+        .map(UCSBDate::getName)
+        .toList();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void every_write_is_visible_to_the_next_read_of_the_cached_lists() throws Exception {
+    // arrange: fill both caches
+    fetch("/api/ucsbdates/all");
+    fetch("/api/ucsbdates/quarter?qyyyyq=20241");
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/post?quarterYYYYQ=20241&name=finals&localDateTime=2024-03-16T00:00:00")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("finals"), namesOf(fetch("/api/ucsbdates/all")));
+    assertEquals(List.of("finals"), namesOf(fetch("/api/ucsbdates/quarter?qyyyyq=20241")));
+
+    // act
+    long id = ucsbDateRepository.findAll().iterator().next().getId();
+    UCSBDate edited =
+        UCSBDate.builder()
+            .quarterYYYYQ("20241")
+            .name("final exams")
+            .localDateTime(LocalDateTime.parse("2024-03-16T00:00:00"))
+            .build();
+    mockMvc
+        .perform(
+            put("/api/ucsbdates?id=" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("final exams"), namesOf(fetch("/api/ucsbdates/all")));
+    assertEquals(List.of("final exams"), namesOf(fetch("/api/ucsbdates/quarter?qyyyyq=20241")));
+
+    // act
+    mockMvc.perform(delete("/api/ucsbdates?id=" + id).with(csrf())).andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of(), namesOf(fetch("/api/ucsbdates/all")));
+    assertEquals(List.of(), namesOf(fetch("/api/ucsbdates/quarter?qyyyyq=20241")));
+  }
+}
@@ -0,0 +1,160 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UCSBDiningCommonsIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private JsonNode nearest(String query) throws Exception {
+    return mapper.readTree(
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?" + query))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void nearest_commons_follow_writes() throws Exception {
+    // act: create two commons
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/post?code=carrillo&name=Carrillo&hasSackMeal=false"
+                    + "&hasTakeOutMeal=false&hasDiningCam=true&latitude=34.409953&longitude=-119.85277")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true"
+                    + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.410987&longitude=-119.84709")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    JsonNode near = nearest("lat=34.4110&lon=-119.8471&k=5");
+    assertEquals(2, near.size());
+    assertEquals("ortega", near.get(0).get("commons").get("code").asText());
+    assertEquals("carrillo", near.get(1).get("commons").get("code").asText());
+
+    // act: delete the nearest one
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommons?code=ortega").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    near = nearest("lat=34.4110&lon=-119.8471");
+    assertEquals(1, near.size());
+    assertEquals("carrillo", near.get(0).get("commons").get("code").asText());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_nearest_query_out_of_range_is_a_bad_request() throws Exception {
+    for (String query :
+        List.of(
+            "lat=34.4110&lon=-119.8471&k=0",
+            "lat=91&lon=-119.8471",
+            "lat=34.4110&lon=-181",
+            "lat=NaN&lon=-119.8471")) {
+      mockMvc
+          .perform(get("/api/ucsbdiningcommons/nearest?" + query))
+          .andExpect(status().isBadRequest())
+          .andExpect(jsonPath("$.type").value("IllegalArgumentException"));
+    }
+  }
+
+  private List<String> allNames() throws Exception {
+    String json =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return List.of(mapper.readValue(json, UCSBDiningCommons[].class)).stream()
+        .map(UCSBDiningCommons::getName)
+        .toList();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void every_write_is_visible_to_the_next_read_of_the_cached_list() throws Exception {
+    // arrange: fill the cache
+    assertEquals(List.of(), allNames());
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/post?code=dlg&name=De La Guerra&hasSackMeal=false"
+                    + "&hasTakeOutMeal=false&hasDiningCam=true&latitude=34.409811&longitude=-119.845026")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("De La Guerra"), allNames());
+
+    // act
+    UCSBDiningCommons edited =
+        UCSBDiningCommons.builder()
+            .code("dlg")
+            .name("DLG")
+            .hasDiningCam(true)
+            .latitude(34.409811)
+            .longitude(-119.845026)
+            .build();
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons?code=dlg")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("DLG"), allNames());
+
+    // act
+    mockMvc
+        .perform(delete("/api/ucsbdiningcommons?code=dlg").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of(), allNames());
+  }
+}
@@ -12,6 +12,8 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -100,4 +102,60 @@ public class UCSBDiningCommonsMenuItemIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void menu_items_of_a_commons_are_cached_until_an_item_is_posted() throws Exception {
+    // arrange
+    ucsbDiningCommonsMenuItemRepository.save(
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("ortega")
+            .name("Tacos")
+            .station("EntreeSpecials")
+            .build());
+    ucsbDiningCommonsMenuItemRepository.save(
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("carrillo")
+            .name("Pho")
+            .station("Noodles")
+            .build());
+
+    // act: fill the cache, then save an item behind the controller's back
+    String first = byCommons("ortega");
+    ucsbDiningCommonsMenuItemRepository.save(
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("ortega")
+            .name("CaesarSalad")
+            .station("Greens")
+            .build());
+
+    // assert
+    assertEquals(List.of("EntreeSpecials"), stations(first));
+    assertEquals(first, byCommons("ortega"));
+
+    // act: a write through the controller evicts the cache
+    mockMvc
+        .perform(
+            post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=carrillo&name=Ramen&station=Noodles")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("EntreeSpecials", "Greens"), stations(byCommons("ortega")));
+  }
+
+  private String byCommons(String code) throws Exception {
+    return mockMvc
+        .perform(get("/api/UCSBDiningCommonsMenuItem/bycommons?code=" + code))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+  private List<String> stations(String json) throws Exception {
+    List<String> stations = new ArrayList<>();
+    mapper.readTree(json).fieldNames().forEachRemaining(stations::add);
+    return stations;
+  }
 }
@@ -12,12 +12,15 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -44,6 +47,8 @@ public class UCSBOrganizationIT {
 
   @Autowired public ObjectMapper mapper;
 
+  @Autowired public MeterRegistry meterRegistry;
+
   @MockitoBean UserRepository userRepository;
 
   @WithMockUser(roles = {"USER"})
@@ -101,4 +106,148 @@ public class UCSBOrganizationIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  private UCSBOrganization organization(String orgCode) {
+    return UCSBOrganization.builder()
+        .orgCode(orgCode)
+        .orgTranslation(orgCode + "_TRANSLATION")
+        .orgTranslationShort(orgCode)
+        .inactive(false)
+        .build();
+  }
+
+  private String getAll() throws Exception {
+    return mockMvc
+        .perform(get("/api/ucsborganization/all"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", UCSBOrganizationRepository.ALL_CACHE)
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void the_list_of_organizations_is_cached_until_an_organization_is_posted()
+      throws Exception {
+    // arrange
+    UCSBOrganization zpr = ucsbOrganizationRepository.save(organization("ZPR"));
+
+    // act: the first read fills the cache, so a row saved behind the controller's back is not seen
+    String first = getAll();
+    UCSBOrganization sky = ucsbOrganizationRepository.save(organization("SKY"));
+    String second = getAll();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(List.of(zpr)), first);
+    assertEquals(first, second);
+    assertEquals(1.0, cacheGets("miss"));
+    assertEquals(1.0, cacheGets("hit"));
+
+    // act: a write through the controller evicts the cache
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/post?orgCode=OSLI&orgTranslation=OSLI_TRANSLATION&orgTranslationShort=OSLI&inactive=false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    String third = getAll();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(
+            List.of(zpr, sky, ucsbOrganizationRepository.findById("OSLI").get())),
+        third);
+    assertEquals(2.0, cacheGets("miss"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void suggestions_follow_writes_even_while_the_list_is_cached() throws Exception {
+    // arrange: fill the cache of the full list
+    getAll();
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/post?orgCode=SKY&orgTranslation=SKYDIVING CLUB&orgTranslationShort=SKY CLUB&inactive=false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of("SKY"), suggestedCodes("skyd"));
+    assertEquals(List.of("SKY"), suggestedCodes("club"));
+
+    // act
+    mockMvc
+        .perform(delete("/api/ucsborganization?orgCode=SKY").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(List.of(), suggestedCodes("sky"));
+  }
+
+  private List<String> suggestedCodes(String prefix) throws Exception {
+    String json =
+        mockMvc
+            .perform(get("/api/ucsborganization/suggest").param("prefix", prefix))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return List.of(mapper.readValue(json, UCSBOrganization[].class)).stream()
+        .map(UCSBOrganization::getOrgCode)
+        .toList();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void every_write_is_visible_to_the_next_read_of_the_cached_list() throws Exception {
+    // arrange: fill the cache
+    getAll();
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/post?orgCode=SKY&orgTranslation=SKYDIVING_CLUB&orgTranslationShort=SKY&inactive=false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(ucsbOrganizationRepository.findById("SKY").get())),
+        getAll());
+
+    // act
+    UCSBOrganization edited = organization("SKY");
+    edited.setInactive(true);
+    mockMvc
+        .perform(
+            put("/api/ucsborganization?orgCode=SKY")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    UCSBOrganization[] afterPut = mapper.readValue(getAll(), UCSBOrganization[].class);
+    assertEquals(1, afterPut.length);
+    assertEquals(true, afterPut[0].getInactive());
+    assertEquals("SKY_TRANSLATION", afterPut[0].getOrgTranslation());
+
+    // act
+    mockMvc
+        .perform(delete("/api/ucsborganization?orgCode=SKY").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertEquals("[]", getAll());
+  }
 }
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import org.junit.jupiter.api.Test;
+
+public class TestJobTests {
+
+  @Test
+  public void test_job_reports_progress_for_each_step() throws Exception {
+    // arrange
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, null, job);
+
+    // act
+    TestJob.builder().fail(false).sleepMs(10).build().accept(ctx);
+
+    // assert
+    assertEquals(100, job.getProgressPercent());
+    assertEquals(10L, job.getItemsProcessed());
+    assertEquals("Hello World! from test job!\nGoodbye from test job!", job.getLog());
+  }
+
+  @Test
+  public void test_job_stops_when_cancelled() throws Exception {
+    // arrange
+    JobContext ctx = mock(JobContext.class);
+    when(ctx.isCancelled()).thenReturn(true);
+
+    // act
+    TestJob.builder().fail(true).sleepMs(10).build().accept(ctx);
+
+    // assert
+    verify(ctx).log("Hello World! from test job!");
+    verify(ctx, never()).progress(anyInt(), any(), anyLong());
+    verify(ctx).isCancelled();
+    verifyNoMoreInteractions(ctx);
+  }
+}
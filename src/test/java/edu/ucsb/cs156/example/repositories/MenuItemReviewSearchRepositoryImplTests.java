@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewSearchRepository.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+public class MenuItemReviewSearchRepositoryImplTests {
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private TypedQuery<MenuItemReview> query;
+
+  @InjectMocks private MenuItemReviewSearchRepositoryImpl repository;
+
+  private final List<MenuItemReview> results = List.of(MenuItemReview.builder().id(1L).build());
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(entityManager.createQuery(anyString(), eq(MenuItemReview.class))).thenReturn(query);
+    when(query.getResultList()).thenReturn(results);
+  }
+
+  @Test
+  public void no_filters_lists_every_review_in_id_order() {
+    assertEquals(
+        results, repository.findFiltered(null, null, null, null, null, null, Limit.unlimited()));
+
+    verify(entityManager)
+        .createQuery("select r from menuitemreviews r order by r.id asc", MenuItemReview.class);
+    verify(query, never()).setParameter(anyString(), any());
+    verify(query, never()).setMaxResults(anyInt());
+  }
+
+  @Test
+  public void only_the_given_filters_are_in_the_query() {
+    LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+    LocalDateTime to = LocalDateTime.parse("2022-02-01T00:00:00");
+
+    repository.findFiltered(
+        null, "cgaucho@ucsb.edu", from, to, 3, new Cursor(null, 8L), Limit.of(5));
+
+    verify(entityManager)
+        .createQuery(
+            "select r from menuitemreviews r where r.reviewerEmail = :reviewerEmail"
+                + " and r.dateReviewed >= :reviewedFrom and r.dateReviewed < :reviewedTo"
+                + " and r.stars >= :minStars and r.id > :afterId order by r.id asc",
+            MenuItemReview.class);
+    verify(query).setParameter("reviewerEmail", "cgaucho@ucsb.edu");
+    verify(query).setParameter("reviewedFrom", from);
+    verify(query).setParameter("reviewedTo", to);
+    verify(query).setParameter("minStars", 3);
+    verify(query).setParameter("afterId", 8L);
+    verify(query).setMaxResults(5);
+  }
+
+  @Test
+  public void a_search_by_item_is_ordered_by_date_and_id() {
+    repository.findFiltered(27L, null, null, null, null, null, Limit.of(2));
+
+    verify(entityManager)
+        .createQuery(
+            "select r from menuitemreviews r where r.itemId = :itemId"
+                + " order by r.dateReviewed asc nulls last, r.id asc",
+            MenuItemReview.class);
+    verify(query).setParameter("itemId", 27L);
+    verify(query).setMaxResults(2);
+  }
+
+  @Test
+  public void a_search_by_item_continues_after_a_dated_review() {
+    LocalDateTime date = LocalDateTime.parse("2022-01-02T12:00:00");
+
+    repository.findFiltered(27L, null, null, null, null, new Cursor(date, 8L), Limit.of(2));
+
+    verify(entityManager)
+        .createQuery(
+            "select r from menuitemreviews r where r.itemId = :itemId"
+                + " and (r.dateReviewed > :afterDate"
+                + " or (r.dateReviewed = :afterDate and r.id > :afterId)"
+                + " or r.dateReviewed is null)"
+                + " order by r.dateReviewed asc nulls last, r.id asc",
+            MenuItemReview.class);
+    verify(query).setParameter("afterDate", date);
+    verify(query).setParameter("afterId", 8L);
+  }
+
+  @Test
+  public void a_search_by_item_continues_among_undated_reviews() {
+    repository.findFiltered(27L, null, null, null, null, new Cursor(null, 8L), Limit.of(2));
+
+    verify(entityManager)
+        .createQuery(
+            "select r from menuitemreviews r where r.itemId = :itemId"
+                + " and r.dateReviewed is null and r.id > :afterId"
+                + " order by r.dateReviewed asc nulls last, r.id asc",
+            MenuItemReview.class);
+    verify(query).setParameter("afterId", 8L);
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AdminRegistryTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks private AdminRegistry adminRegistry;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(adminRegistry, "adminEmails", List.of("config@ucsb.edu"));
+  }
+
+  @Test
+  public void test_refresh_combines_configured_and_database_admins() {
+    when(userRepository.findAdminEmails()).thenReturn(List.of("db@ucsb.edu"));
+
+    adminRegistry.refresh();
+
+    assertTrue(adminRegistry.isAdmin("config@ucsb.edu"));
+    assertTrue(adminRegistry.isAdmin("db@ucsb.edu"));
+    assertFalse(adminRegistry.isAdmin("student@ucsb.edu"));
+    assertFalse(adminRegistry.isAdmin(null));
+    assertTrue(adminRegistry.isConfiguredAdmin("config@ucsb.edu"));
+    assertFalse(adminRegistry.isConfiguredAdmin("db@ucsb.edu"));
+    assertFalse(adminRegistry.isConfiguredAdmin(null));
+    verify(eventPublisher)
+        .publishEvent(
+            new AdminRegistry.AdminsChangedEvent(Set.of("config@ucsb.edu", "db@ucsb.edu")));
+  }
+
+  @Test
+  public void test_refresh_publishes_only_when_admins_change() {
+    when(userRepository.findAdminEmails())
+        .thenReturn(List.of("db@ucsb.edu"), List.of("db@ucsb.edu"), List.of());
+
+    adminRegistry.refresh();
+    adminRegistry.refresh();
+    verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+
+    adminRegistry.refresh();
+    assertFalse(adminRegistry.isAdmin("db@ucsb.edu"));
+    verify(eventPublisher)
+        .publishEvent(new AdminRegistry.AdminsChangedEvent(Set.of("config@ucsb.edu")));
+    verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+  }
+
+  @Test
+  public void test_isAdmin_is_false_before_refresh() {
+    assertFalse(adminRegistry.isAdmin("config@ucsb.edu"));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+}
@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AuthAuditLoggerTests {
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(AuthAuditLogger.class);
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private final Clock clock = mock(Clock.class);
+  private final AtomicInteger supplierCalls = new AtomicInteger();
+
+  private AuthAuditLogger authAuditLogger;
+
+  @BeforeEach
+  public void setup() {
+    appender.start();
+    logger.addAppender(appender);
+    logger.setLevel(ch.qos.logback.classic.Level.DEBUG);
+    authAuditLogger = new AuthAuditLogger();
+    ReflectionTestUtils.setField(authAuditLogger, "clock", clock);
+    ReflectionTestUtils.setField(authAuditLogger, "maxPerSecond", 2);
+    when(clock.millis()).thenReturn(5000L);
+  }
+
+  @AfterEach
+  public void teardown() {
+    logger.detachAppender(appender);
+    logger.setLevel(null);
+  }
+
+  private void audit() {
+    authAuditLogger.audit(
+        "login",
+        () -> {
+          supplierCalls.incrementAndGet();
+          return Map.of("email", "cgaucho@ucsb.edu");
+        });
+  }
+
+  @Test
+  public void test_audit_writes_message_and_key_values() {
+    audit();
+
+    assertEquals(1, appender.list.size());
+    ILoggingEvent event = appender.list.get(0);
+    assertEquals(ch.qos.logback.classic.Level.DEBUG, event.getLevel());
+    assertEquals(
+        "auth audit login {email=cgaucho@ucsb.edu} (dropped since last event: 0)",
+        event.getFormattedMessage());
+    assertEquals(
+        List.of("event=\"login\"", "dropped=\"0\"", "email=\"cgaucho@ucsb.edu\""),
+        event.getKeyValuePairs().stream().map(Object::toString).toList());
+  }
+
+  @Test
+  public void test_audit_does_nothing_when_level_is_disabled() {
+    logger.setLevel(ch.qos.logback.classic.Level.INFO);
+
+    audit();
+
+    assertTrue(appender.list.isEmpty());
+    assertEquals(0, supplierCalls.get());
+  }
+
+  @Test
+  public void test_audit_uses_configured_level() {
+    ReflectionTestUtils.setField(authAuditLogger, "level", Level.WARN);
+
+    audit();
+
+    assertEquals(ch.qos.logback.classic.Level.WARN, appender.list.get(0).getLevel());
+  }
+
+  @Test
+  public void test_audit_is_rate_limited_and_reports_dropped_events() {
+    audit();
+    audit();
+    audit();
+    audit();
+    assertEquals(2, appender.list.size());
+    assertEquals(2, supplierCalls.get());
+
+    when(clock.millis()).thenReturn(6000L);
+    audit();
+
+    assertEquals(3, appender.list.size());
+    assertEquals(
+        "auth audit login {email=cgaucho@ucsb.edu} (dropped since last event: 2)",
+        appender.list.get(2).getFormattedMessage());
+  }
+
+  @Test
+  public void test_audit_is_sampled() {
+    ReflectionTestUtils.setField(authAuditLogger, "sampleRate", 0.0);
+    audit();
+    assertTrue(appender.list.isEmpty());
+
+    ReflectionTestUtils.setField(authAuditLogger, "sampleRate", Math.nextDown(1.0));
+    audit();
+    assertEquals(1, appender.list.size());
+  }
+}
@@ -0,0 +1,215 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class CurrentUserServiceImplTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @Mock private AdminRegistry adminRegistry;
+
+  @Mock private AuthAuditLogger authAuditLogger;
+
+  @InjectMocks private CurrentUserServiceImpl currentUserService;
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+  private final User cgaucho = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+
+  private final User ldelplaya = User.builder().id(2L).email("ldelplaya@ucsb.edu").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(currentUserService, "cacheTtlMs", 60000L);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(cgaucho));
+    when(userRepository.findByEmail("ldelplaya@ucsb.edu")).thenReturn(Optional.of(ldelplaya));
+  }
+
+  @AfterEach
+  public void teardown() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private OAuth2AuthenticationToken loginAs(String email, String sub) {
+    List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    Map<String, Object> attributes =
+        Map.of(
+            "email", email,
+            "sub", sub,
+            "picture", "https://example.org/picture.png",
+            "name", "Chris Gaucho",
+            "given_name", "Chris",
+            "family_name", "Gaucho",
+            "email_verified", true,
+            "locale", "en",
+            "hd", "ucsb.edu");
+    OAuth2AuthenticationToken token =
+        new OAuth2AuthenticationToken(
+            new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google");
+    SecurityContextHolder.getContext().setAuthentication(token);
+    return token;
+  }
+
+  @Test
+  public void a_session_reuses_its_cached_user() {
+    loginAs("cgaucho@ucsb.edu", "1");
+
+    assertSame(cgaucho, currentUserService.getUser());
+    assertSame(cgaucho, currentUserService.getUser());
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void an_expired_cached_user_is_looked_up_again() {
+    ReflectionTestUtils.setField(currentUserService, "cacheTtlMs", 0L);
+    loginAs("cgaucho@ucsb.edu", "1");
+
+    currentUserService.getUser();
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void a_different_login_in_the_same_session_is_looked_up_again() {
+    loginAs("cgaucho@ucsb.edu", "1");
+    assertSame(cgaucho, currentUserService.getUser());
+
+    loginAs("ldelplaya@ucsb.edu", "2");
+    assertSame(ldelplaya, currentUserService.getUser());
+
+    verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+    verify(userRepository, times(1)).findByEmail("ldelplaya@ucsb.edu");
+  }
+
+  @Test
+  public void invalidating_cached_users_makes_every_session_look_its_user_up_again() {
+    loginAs("cgaucho@ucsb.edu", "1");
+    currentUserService.getUser();
+
+    currentUserService.invalidateCachedUsers();
+    currentUserService.getUser();
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void a_change_of_admins_invalidates_cached_users() {
+    loginAs("cgaucho@ucsb.edu", "1");
+    currentUserService.getUser();
+
+    currentUserService.onAdminsChanged(
+        new AdminRegistry.AdminsChangedEvent(Set.of("cgaucho@ucsb.edu")));
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void without_a_request_the_user_is_looked_up_every_time() {
+    RequestContextHolder.resetRequestAttributes();
+    loginAs("cgaucho@ucsb.edu", "1");
+
+    currentUserService.getUser();
+    currentUserService.getUser();
+
+    verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void there_is_no_user_without_an_oauth2_login() {
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("cgaucho", "password"));
+
+    assertNull(currentUserService.getUser());
+    assertNull(request.getSession(false));
+  }
+
+  @Test
+  public void a_changed_email_updates_the_user_stored_for_the_google_account() {
+    User stored = User.builder().id(3L).email("old@ucsb.edu").googleSub("3").build();
+    when(userRepository.findByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.findByGoogleSub("3")).thenReturn(Optional.of(stored));
+    OAuth2AuthenticationToken token = loginAs("new@ucsb.edu", "3");
+
+    User user =
+        currentUserService.getOAuth2AuthenticatedUser(SecurityContextHolder.getContext(), token);
+
+    assertSame(stored, user);
+    assertEquals("new@ucsb.edu", user.getEmail());
+    verify(userRepository, times(1)).save(stored);
+  }
+
+  @Test
+  public void a_user_stored_by_a_concurrent_first_login_is_read_back() {
+    User concurrent = User.builder().id(4L).email("new@ucsb.edu").googleSub("4").build();
+    when(userRepository.findByEmail("new@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(concurrent));
+    when(userRepository.findByGoogleSub("4")).thenReturn(Optional.empty());
+    when(userRepository.save(any(User.class)))
+        .thenThrow(new DataIntegrityViolationException("USERS_EMAIL_IDX"));
+    OAuth2AuthenticationToken token = loginAs("new@ucsb.edu", "4");
+
+    User user =
+        currentUserService.getOAuth2AuthenticatedUser(SecurityContextHolder.getContext(), token);
+
+    assertSame(concurrent, user);
+    verify(userRepository, times(1)).save(any(User.class));
+  }
+
+  @Test
+  public void a_failed_insert_with_no_user_to_read_back_is_rethrown() {
+    DataIntegrityViolationException failure = new DataIntegrityViolationException("USERS_PK");
+    when(userRepository.findByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.findByGoogleSub("5")).thenReturn(Optional.empty());
+    when(userRepository.save(any(User.class))).thenThrow(failure);
+    OAuth2AuthenticationToken token = loginAs("new@ucsb.edu", "5");
+
+    DataIntegrityViolationException thrown =
+        assertThrows(
+            DataIntegrityViolationException.class,
+            () ->
+                currentUserService.getOAuth2AuthenticatedUser(
+                    SecurityContextHolder.getContext(), token));
+
+    assertSame(failure, thrown);
+  }
+}
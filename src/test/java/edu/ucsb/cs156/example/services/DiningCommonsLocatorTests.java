@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class DiningCommonsLocatorTests {
+
+  @Mock private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @InjectMocks private DiningCommonsLocator diningCommonsLocator;
+
+  UCSBDiningCommons carrillo =
+      UCSBDiningCommons.builder()
+          .code("carrillo")
+          .latitude(34.409953)
+          .longitude(-119.85277)
+          .build();
+
+  UCSBDiningCommons dlg =
+      UCSBDiningCommons.builder()
+          .code("de-la-guerra")
+          .latitude(34.409811)
+          .longitude(-119.845026)
+          .build();
+
+  UCSBDiningCommons ortega =
+      UCSBDiningCommons.builder().code("ortega").latitude(34.410987).longitude(-119.84709).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(ucsbDiningCommonsRepository.findByLatitudeNotNullAndLongitudeNotNull())
+        .thenReturn(List.of(carrillo, dlg, ortega));
+  }
+
+  @Test
+  public void nearest_returns_commons_in_order_of_distance() {
+    diningCommonsLocator.refresh();
+
+    List<DiningCommonsLocator.Nearby> nearby =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 2);
+
+    assertEquals(2, nearby.size());
+    assertEquals(carrillo, nearby.get(0).commons());
+    assertEquals(0.0, nearby.get(0).distanceKm(), 1e-9);
+    assertEquals(ortega, nearby.get(1).commons());
+    // Carrillo to Ortega is a little over half a kilometer
+    assertEquals(0.53, nearby.get(1).distanceKm(), 0.01);
+  }
+
+  @Test
+  public void nearest_returns_every_commons_when_k_is_large() {
+    diningCommonsLocator.refresh();
+
+    List<DiningCommonsLocator.Nearby> nearby = diningCommonsLocator.nearest(34.4098, -119.845, 10);
+
+    assertEquals(List.of(dlg, ortega, carrillo), nearby.stream().map(n -> n.commons()).toList());
+  }
+
+  @Test
+  public void nearest_is_empty_before_the_first_refresh() {
+    assertTrue(diningCommonsLocator.nearest(34.41, -119.85, 3).isEmpty());
+  }
+
+  @Test
+  public void refresh_picks_up_changes() {
+    diningCommonsLocator.refresh();
+    when(ucsbDiningCommonsRepository.findByLatitudeNotNullAndLongitudeNotNull())
+        .thenReturn(List.of(ortega));
+
+    diningCommonsLocator.refresh();
+
+    assertEquals(1, diningCommonsLocator.nearest(34.41, -119.85, 3).size());
+  }
+
+  @Test
+  public void nearest_rejects_points_off_the_globe_and_k_below_one() {
+    assertThrows(IllegalArgumentException.class, () -> diningCommonsLocator.nearest(-91, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> diningCommonsLocator.nearest(91, 0, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> diningCommonsLocator.nearest(Double.NaN, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> diningCommonsLocator.nearest(0, -181, 1));
+    assertThrows(IllegalArgumentException.class, () -> diningCommonsLocator.nearest(0, 181, 1));
+    assertThrows(IllegalArgumentException.class, () -> diningCommonsLocator.nearest(0, 0, 0));
+    assertEquals(0, diningCommonsLocator.nearest(90, 180, 1).size());
+  }
+}
@@ -1,26 +1,62 @@
 package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private ThreadPoolTaskExecutor jobTaskExecutor;
+
+  @Mock private JobLogStreamService jobLogStreamService;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
   @InjectMocks private JobService jobService;
 
+  private JobService self;
+
   @BeforeEach
   public void setup() {
     MockitoAnnotations.openMocks(this);
+    self = mock(JobService.class);
+    ReflectionTestUtils.setField(jobService, "self", self);
+    ReflectionTestUtils.setField(jobService, "queueBatchSize", 10);
+    ReflectionTestUtils.setField(jobService, "queueStaleAfterMs", 300000L);
+    ReflectionTestUtils.setField(jobService, "queueMaxAttempts", 3);
+    when(jobTaskExecutor.getMaxPoolSize()).thenReturn(4);
+    when(jobTaskExecutor.getQueueCapacity()).thenReturn(25);
   }
 
   @Test
@@ -62,4 +98,464 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_getJobLogs_assembles_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().build();
+    job.setLog("only the summary");
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).lineNumber(0).message("first").build(),
+                JobLogLine.builder().jobId(jobId).lineNumber(1).message("second").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("first\nsecond", result);
+  }
+
+  @Test
+  void test_runJobAsync_buffers_lines_until_the_job_finishes() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    ReflectionTestUtils.setField(jobService, "logFlushIntervalMs", 60000L);
+    Job job = Job.builder().id(3L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("first");
+          ctx.log("second");
+          jobService.flushRunningJobLogs();
+          verify(jobLogLinesRepository, never()).saveAll(anyList());
+        });
+
+    // Assert
+    verify(jobLogLinesRepository, times(1)).saveAll(anyList());
+    verify(jobRepository, times(2)).save(job);
+    assertEquals("complete", job.getStatus());
+    assertEquals("first\nsecond", job.getLog());
+    verify(jobLogStreamService, times(2)).publishLine(any());
+    verify(jobLogStreamService, times(2)).publishStatus(job);
+  }
+
+  @Test
+  void test_runJobAsync_flushes_the_error_message_when_the_job_fails() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    ReflectionTestUtils.setField(jobService, "logFlushIntervalMs", 60000L);
+    Job job = Job.builder().id(4L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          throw new Exception("Fail!");
+        });
+
+    // Assert
+    verify(jobLogLinesRepository, times(1)).saveAll(anyList());
+    verify(jobRepository, times(2)).save(job);
+    assertEquals("error", job.getStatus());
+    assertEquals("Fail!", job.getLog());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_runJobAsync_continues_line_numbers_of_an_earlier_attempt() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    ReflectionTestUtils.setField(jobService, "logFlushIntervalMs", 60000L);
+    Job job = Job.builder().id(5L).status("claimed").attempts(2).build();
+    when(jobLogLinesRepository.findMaxLineNumberByJobId(5L)).thenReturn(Optional.of(4));
+    ArgumentCaptor<List<JobLogLine>> saved = ArgumentCaptor.forClass(List.class);
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("again"));
+
+    // Assert
+    verify(jobLogLinesRepository).saveAll(saved.capture());
+    assertEquals(5, saved.getValue().get(0).getLineNumber());
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  void test_runAsJob_queues_the_job_as_json() throws Exception {
+    // Act
+    Job job = jobService.runAsJob(TestJob.builder().fail(true).sleepMs(5).build());
+
+    // Assert
+    assertEquals("pending", job.getStatus());
+    assertEquals(
+        Map.of("type", "TestJob", "fail", true, "sleepMs", 5),
+        mapper.readValue(job.getPayload(), Map.class));
+    verify(jobRepository, times(1)).save(job);
+  }
+
+  @Test
+  void test_runAsJob_refuses_jobs_that_cannot_be_stored() {
+    // Act
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> jobService.runAsJob(ctx -> {}));
+
+    // Assert
+    assertTrue(e.getMessage().startsWith("Job JobLogsServiceTests$$Lambda"), e.getMessage());
+    verify(jobRepository, never()).save(any());
+  }
+
+  @Test
+  void test_claimPendingJobs_marks_the_locked_jobs_as_claimed() {
+    // Arrange
+    Job job = Job.builder().id(5L).status("pending").attempts(1).build();
+    when(jobRepository.findByStatusOrderByIdAsc("pending", Limit.of(2))).thenReturn(List.of(job));
+
+    // Act
+    List<Job> claimed = jobService.claimPendingJobs(2);
+
+    // Assert
+    assertEquals(List.of(job), claimed);
+    assertEquals("claimed", job.getStatus());
+    assertEquals(2, job.getAttempts());
+    assertNotNull(job.getClaimedBy());
+    assertNotNull(job.getClaimedAt());
+    verify(jobRepository, times(1)).saveAll(List.of(job));
+    verify(jobRepository, times(1)).touchHeartbeat(eq(List.of(5L)), any());
+  }
+
+  @Test
+  void test_claimPendingJobs_with_an_empty_queue_writes_nothing() {
+    // Act
+    List<Job> claimed = jobService.claimPendingJobs(2);
+
+    // Assert
+    assertEquals(List.of(), claimed);
+    verify(jobRepository, never()).saveAll(any());
+    verify(jobRepository, never()).touchHeartbeat(any(), any());
+  }
+
+  @Test
+  void test_pollQueue_requeues_stale_jobs_and_dispatches_claimed_ones() throws Exception {
+    // Arrange
+    Job job = claimedJob(6L, 1, "{\"type\":\"TestJob\",\"fail\":false,\"sleepMs\":0}");
+    when(jobRepository.requeueStaleJobs(any())).thenReturn(2);
+    when(self.claimPendingJobs(10)).thenReturn(List.of(job)).thenReturn(List.of());
+
+    // Act
+    jobService.pollQueue();
+    jobService.pollQueue();
+
+    // Assert
+    verify(self, times(1)).runJobAsync(eq(job), any(TestJob.class));
+    verify(jobRepository, times(1)).touchHeartbeat(eq(Set.of(6L)), any());
+    verify(jobRepository, times(2)).requeueStaleJobs(any());
+  }
+
+  @Test
+  void test_pollQueue_claims_nothing_when_the_executor_is_full() {
+    // Arrange
+    when(jobTaskExecutor.getActiveCount()).thenReturn(4);
+    when(jobTaskExecutor.getQueueSize()).thenReturn(25);
+
+    // Act
+    jobService.pollQueue();
+
+    // Assert
+    verify(self, never()).claimPendingJobs(anyInt());
+    verify(jobRepository, never()).touchHeartbeat(any(), any());
+  }
+
+  @Test
+  void test_pollQueue_marks_jobs_that_cannot_be_resumed_as_errors() {
+    // Arrange
+    Job missing = claimedJob(7L, 1, null);
+    Job garbled = claimedJob(8L, 1, "not json");
+    Job exhausted = claimedJob(9L, 4, "{\"type\":\"TestJob\"}");
+    when(self.claimPendingJobs(10)).thenReturn(List.of(missing, garbled, exhausted));
+
+    // Act
+    jobService.pollQueue();
+
+    // Assert
+    assertEquals("error", missing.getStatus());
+    assertTrue(missing.getLog().startsWith("Job cannot be resumed: "), missing.getLog());
+    assertEquals("error", garbled.getStatus());
+    assertTrue(garbled.getLog().startsWith("Job cannot be resumed: "), garbled.getLog());
+    assertEquals("error", exhausted.getStatus());
+    assertEquals("Job abandoned after 3 attempts", exhausted.getLog());
+    verify(self, never()).runJobAsync(any(), any());
+  }
+
+  @Test
+  void test_pollQueue_marks_the_job_rejected_when_the_executor_is_full() {
+    // Arrange
+    Job job = claimedJob(10L, 1, "{\"type\":\"TestJob\"}");
+    when(self.claimPendingJobs(10)).thenReturn(List.of(job)).thenReturn(List.of());
+    doThrow(new TaskRejectedException("queue full")).when(self).runJobAsync(any(), any());
+
+    // Act
+    jobService.pollQueue();
+    jobService.pollQueue();
+
+    // Assert
+    assertEquals("rejected", job.getStatus());
+    assertEquals(
+        "Job rejected: too many jobs are running or queued; try again later.", job.getLog());
+    verify(jobRepository, times(1)).save(job);
+    verify(jobLogStreamService, times(1)).publishStatus(job);
+    verify(jobRepository, never()).touchHeartbeat(any(), any());
+  }
+
+  @Test
+  void test_cancelJob_cancels_a_pending_job_straight_away() {
+    // Arrange
+    Job job = Job.builder().id(11L).status("pending").build();
+    when(jobRepository.cancelPendingJob(11L)).thenReturn(1);
+
+    // Act
+    Job result = jobService.cancelJob(job);
+
+    // Assert
+    assertEquals("cancelled", result.getStatus());
+    verify(jobRepository, never()).requestCancel(anyLong());
+    verify(jobLogStreamService, times(1)).publishStatus(job);
+  }
+
+  @Test
+  void test_cancelJob_stops_a_job_running_on_this_instance() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    Job job = Job.builder().id(12L).status("claimed").build();
+    when(jobRepository.requestCancel(12L)).thenReturn(1);
+    List<Boolean> seen = new ArrayList<>();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          seen.add(ctx.isCancelled());
+          jobService.cancelJob(job);
+          seen.add(ctx.isCancelled());
+        });
+
+    // Assert
+    assertEquals(List.of(false, true), seen);
+    assertTrue(job.getCancelRequested());
+    assertEquals("cancelled", job.getStatus());
+    assertEquals("Job cancelled", job.getLog());
+  }
+
+  @Test
+  void test_cancelJob_after_the_last_check_leaves_the_job_complete() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    Job job = Job.builder().id(17L).status("claimed").build();
+    when(jobRepository.requestCancel(17L)).thenReturn(1);
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("last line");
+          jobService.cancelJob(job);
+        });
+
+    // Assert
+    assertTrue(job.getCancelRequested());
+    assertEquals("complete", job.getStatus());
+    assertEquals("last line", job.getLog());
+  }
+
+  @Test
+  void test_cancelJob_flags_a_job_running_on_another_instance() {
+    // Arrange
+    Job job = Job.builder().id(13L).status("running").build();
+    when(jobRepository.requestCancel(13L)).thenReturn(1);
+
+    // Act
+    Job result = jobService.cancelJob(job);
+
+    // Assert
+    assertTrue(result.getCancelRequested());
+    assertEquals("running", result.getStatus());
+  }
+
+  @Test
+  void test_cancelJob_leaves_finished_jobs_alone() {
+    // Arrange
+    Job job = Job.builder().id(14L).status("complete").build();
+
+    // Act
+    Job result = jobService.cancelJob(job);
+
+    // Assert
+    assertEquals("complete", result.getStatus());
+    assertFalse(result.getCancelRequested());
+  }
+
+  @Test
+  void test_runJobAsync_skips_a_job_cancelled_while_it_was_queued() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    Job job = Job.builder().id(15L).status("claimed").build();
+    when(jobRepository.findCancelRequestedIds(List.of(15L))).thenReturn(List.of(15L));
+    JobContextConsumer jobFunction = mock(JobContextConsumer.class);
+
+    // Act
+    jobService.runJobAsync(job, jobFunction);
+
+    // Assert
+    verifyNoInteractions(jobFunction);
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_pollQueue_passes_on_cancel_requests_from_other_instances() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logFlushEveryLines", 50);
+    Job job = Job.builder().id(16L).status("claimed").build();
+    ((Set<Long>) ReflectionTestUtils.getField(jobService, "claimedJobIds")).add(16L);
+    when(jobRepository.findCancelRequestedIds(Set.of(16L))).thenReturn(List.of(16L));
+    List<Boolean> seen = new ArrayList<>();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobService.pollQueue();
+          seen.add(ctx.isCancelled());
+        });
+
+    // Assert
+    assertEquals(List.of(true), seen);
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  private static JobLogLine logLine(long jobId, int lineNumber) {
+    return JobLogLine.builder()
+        .jobId(jobId)
+        .lineNumber(lineNumber)
+        .message("line " + lineNumber)
+        .build();
+  }
+
+  @Test
+  void test_getJobLogs_range_reads_only_the_requested_lines() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logMaxLines", 100);
+    when(jobRepository.findStatusById(20L)).thenReturn(Optional.of("running"));
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            20L, 3, Limit.of(2)))
+        .thenReturn(List.of(logLine(20L, 3), logLine(20L, 4)));
+
+    // Act
+    String result = jobService.getJobLogs(20L, 3, 2, null);
+
+    // Assert
+    assertEquals("line 3\nline 4", result);
+    verify(jobRepository, never()).findById(any());
+    verify(jobLogLinesRepository, never()).existsByJobId(anyLong());
+  }
+
+  @Test
+  void test_getJobLogs_range_defaults_and_caps() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logMaxLines", 100);
+    when(jobRepository.findStatusById(21L)).thenReturn(Optional.of("running"));
+    when(jobLogLinesRepository.existsByJobId(21L)).thenReturn(true);
+
+    // Act
+    String fromOffset = jobService.getJobLogs(21L, 50, null, null);
+    String tooMany = jobService.getJobLogs(21L, -5, 5000, null);
+
+    // Assert
+    assertEquals("", fromOffset);
+    assertEquals("", tooMany);
+    verify(jobLogLinesRepository)
+        .findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(21L, 50, Limit.of(100));
+    verify(jobLogLinesRepository)
+        .findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(21L, 0, Limit.of(100));
+  }
+
+  @Test
+  void test_getJobLogs_tail_returns_the_last_lines_in_order() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logMaxLines", 100);
+    when(jobRepository.findStatusById(22L)).thenReturn(Optional.of("complete"));
+    when(jobLogLinesRepository.findAllByJobIdOrderByLineNumberDesc(22L, Limit.of(3)))
+        .thenReturn(List.of(logLine(22L, 9), logLine(22L, 8), logLine(22L, 7)));
+
+    // Act
+    String result = jobService.getJobLogs(22L, 4, null, 3);
+
+    // Assert
+    assertEquals("line 7\nline 8\nline 9", result);
+  }
+
+  @Test
+  void test_getJobLogs_empty_slice_needs_no_query() {
+    // Arrange
+    when(jobRepository.findStatusById(23L)).thenReturn(Optional.of("complete"));
+
+    // Act
+    String zeroLimit = jobService.getJobLogs(23L, null, 0, null);
+    String negativeTail = jobService.getJobLogs(23L, null, null, -2);
+
+    // Assert
+    assertEquals("", zeroLimit);
+    assertEquals("", negativeTail);
+    verifyNoInteractions(jobLogLinesRepository);
+  }
+
+  @Test
+  void test_getJobLogs_slice_of_a_missing_job() {
+    assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(24L, null, null, 5));
+  }
+
+  @Test
+  void test_getJobLogs_slices_the_log_column_of_old_jobs() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logMaxLines", 100);
+    Job job = Job.builder().id(25L).log("a\nb\nc\nd").build();
+    when(jobRepository.findStatusById(25L)).thenReturn(Optional.of("complete"));
+    when(jobRepository.findById(25L)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    assertEquals("c\nd", jobService.getJobLogs(25L, null, null, 2));
+    assertEquals("a\nb\nc\nd", jobService.getJobLogs(25L, null, null, 10));
+    assertEquals("b\nc", jobService.getJobLogs(25L, 1, 2, null));
+    assertEquals("d", jobService.getJobLogs(25L, 3, 5, null));
+    assertEquals("", jobService.getJobLogs(25L, 7, null, null));
+  }
+
+  @Test
+  void test_getJobLogs_slice_of_an_old_job_without_a_log() {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logMaxLines", 100);
+    when(jobRepository.findStatusById(26L)).thenReturn(Optional.of("complete"));
+    when(jobRepository.findById(26L)).thenReturn(Optional.of(Job.builder().id(26L).build()));
+
+    // Act & Assert
+    assertEquals("", jobService.getJobLogs(26L, null, null, 2));
+  }
+
+  @Test
+  void test_getJobLogs_without_parameters_returns_the_whole_log() {
+    // Arrange
+    when(jobRepository.findById(27L))
+        .thenReturn(Optional.of(Job.builder().id(27L).log("all of it").build()));
+
+    // Act & Assert
+    assertEquals("all of it", jobService.getJobLogs(27L, null, null, null));
+  }
+
+  private Job claimedJob(long id, int attempts, String payload) {
+    return Job.builder().id(id).status("claimed").attempts(attempts).payload(payload).build();
+  }
 }
@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingStats;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingStatsRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class MenuItemRatingStatsServiceTests {
+
+  @Mock MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+
+  @Mock PlatformTransactionManager transactionManager;
+
+  @InjectMocks MenuItemRatingStatsService menuItemRatingStatsService;
+
+  MenuItemRatingStats stats7 =
+      MenuItemRatingStats.builder()
+          .itemId(7L)
+          .reviewCount(2)
+          .starsSum(7)
+          .stars3(1)
+          .stars4(1)
+          .build();
+
+  MenuItemRatingStats stats9 = MenuItemRatingStats.empty(9L);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(menuItemRatingStatsRepository.findForUpdateByItemId(7L)).thenReturn(Optional.of(stats7));
+    when(menuItemRatingStatsRepository.findForUpdateByItemId(9L)).thenReturn(Optional.of(stats9));
+  }
+
+  @Test
+  public void review_added_updates_the_locked_row() {
+    menuItemRatingStatsService.reviewAdded(7L, 5);
+
+    assertEquals(3, stats7.getReviewCount());
+    assertEquals(12, stats7.getStarsSum());
+    assertArrayEquals(new long[] {0, 0, 0, 1, 1, 1}, stats7.getHistogram());
+    assertEquals(4.0, stats7.getAverage());
+    verify(menuItemRatingStatsRepository).save(stats7);
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  @Test
+  public void review_removed_updates_the_locked_row() {
+    menuItemRatingStatsService.reviewRemoved(7L, 3);
+
+    assertEquals(1, stats7.getReviewCount());
+    assertEquals(4, stats7.getStarsSum());
+    assertArrayEquals(new long[] {0, 0, 0, 0, 1, 0}, stats7.getHistogram());
+    verify(menuItemRatingStatsRepository).save(stats7);
+  }
+
+  @Test
+  public void every_star_rating_has_its_own_bucket() {
+    for (int stars = 0; stars <= 5; stars++) {
+      menuItemRatingStatsService.reviewAdded(9L, stars);
+    }
+
+    assertEquals(6, stats9.getReviewCount());
+    assertEquals(15, stats9.getStarsSum());
+    assertArrayEquals(new long[] {1, 1, 1, 1, 1, 1}, stats9.getHistogram());
+    assertThrows(IllegalArgumentException.class, () -> stats9.adjust(6, 1));
+  }
+
+  @Test
+  public void an_item_with_no_reviews_has_no_average() {
+    assertNull(MenuItemRatingStats.empty(1L).getAverage());
+  }
+
+  @Test
+  public void review_added_for_a_new_item_creates_the_row_first() {
+    MenuItemRatingStats created = MenuItemRatingStats.empty(11L);
+    when(menuItemRatingStatsRepository.findForUpdateByItemId(11L))
+        .thenReturn(Optional.empty(), Optional.of(created));
+
+    menuItemRatingStatsService.reviewAdded(11L, 4);
+
+    verify(menuItemRatingStatsRepository).save(MenuItemRatingStats.empty(11L));
+    verify(transactionManager).commit(any());
+    assertEquals(1, created.getReviewCount());
+    verify(menuItemRatingStatsRepository, times(1)).save(created);
+  }
+
+  @Test
+  public void review_added_for_a_new_item_uses_the_row_created_by_a_concurrent_request() {
+    MenuItemRatingStats created = MenuItemRatingStats.empty(11L);
+    when(menuItemRatingStatsRepository.findForUpdateByItemId(11L))
+        .thenReturn(Optional.empty(), Optional.of(created));
+    when(menuItemRatingStatsRepository.save(MenuItemRatingStats.empty(11L)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+    menuItemRatingStatsService.reviewAdded(11L, 4);
+
+    verify(transactionManager).rollback(any());
+    assertEquals(1, created.getReviewCount());
+    assertEquals(4, created.getStarsSum());
+  }
+
+  @Test
+  public void removing_a_legacy_review_with_out_of_range_stars_changes_nothing() {
+    menuItemRatingStatsService.reviewRemoved(7L, 9);
+    menuItemRatingStatsService.reviewRemoved(7L, -1);
+
+    verify(menuItemRatingStatsRepository, never()).findForUpdateByItemId(anyLong());
+    assertEquals(2, stats7.getReviewCount());
+  }
+
+  @Test
+  public void editing_a_legacy_review_with_out_of_range_stars_only_counts_the_new_rating() {
+    menuItemRatingStatsService.reviewChanged(7L, 9, 7L, 5);
+
+    assertEquals(3, stats7.getReviewCount());
+    assertEquals(12, stats7.getStarsSum());
+    assertArrayEquals(new long[] {0, 0, 0, 1, 1, 1}, stats7.getHistogram());
+  }
+
+  @Test
+  public void review_changed_does_nothing_when_item_and_stars_are_unchanged() {
+    menuItemRatingStatsService.reviewChanged(7L, 3, 7L, 3);
+
+    verify(menuItemRatingStatsRepository, never()).findForUpdateByItemId(anyLong());
+  }
+
+  @Test
+  public void review_changed_moves_stars_within_an_item() {
+    menuItemRatingStatsService.reviewChanged(7L, 3, 7L, 5);
+
+    assertEquals(2, stats7.getReviewCount());
+    assertEquals(9, stats7.getStarsSum());
+    assertArrayEquals(new long[] {0, 0, 0, 0, 1, 1}, stats7.getHistogram());
+  }
+
+  @Test
+  public void review_changed_locks_the_lower_item_id_first() {
+    menuItemRatingStatsService.reviewChanged(7L, 3, 9L, 2);
+    menuItemRatingStatsService.reviewChanged(9L, 2, 7L, 3);
+
+    InOrder order = inOrder(menuItemRatingStatsRepository);
+    order.verify(menuItemRatingStatsRepository).findForUpdateByItemId(7L);
+    order.verify(menuItemRatingStatsRepository).findForUpdateByItemId(9L);
+    order.verify(menuItemRatingStatsRepository).findForUpdateByItemId(7L);
+    order.verify(menuItemRatingStatsRepository).findForUpdateByItemId(9L);
+    assertEquals(2, stats7.getReviewCount());
+    assertEquals(0, stats9.getReviewCount());
+    assertArrayEquals(new long[] {0, 0, 0, 0, 0, 0}, stats9.getHistogram());
+  }
+}
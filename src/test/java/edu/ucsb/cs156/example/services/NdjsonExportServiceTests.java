@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class NdjsonExportServiceTests {
+
+  @Mock PlatformTransactionManager transactionManager;
+
+  @Mock EntityManager entityManager;
+
+  @Spy ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  @InjectMocks NdjsonExportService ndjsonExportService;
+
+  Restaurant first = Restaurant.builder().id(1L).name("Freebirds").description("Burritos").build();
+  Restaurant second = Restaurant.builder().id(2L).name("Woodstocks").description("Pizza").build();
+  Restaurant third = Restaurant.builder().id(3L).name("Habit").description("Burgers").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(ndjsonExportService, "flushEvery", 2);
+  }
+
+  @Test
+  public void export_writes_one_json_document_per_line_and_detaches_rows() throws Exception {
+    // arrange
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AtomicBoolean closed = new AtomicBoolean(false);
+
+    // act
+    long written =
+        ndjsonExportService.export(
+            () -> Stream.of(first, second, third).onClose(() -> closed.set(true)), out);
+
+    // assert
+    String expected =
+        mapper.writeValueAsString(first)
+            + "\n"
+            + mapper.writeValueAsString(second)
+            + "\n"
+            + mapper.writeValueAsString(third)
+            + "\n";
+    assertEquals(3, written);
+    assertEquals(expected, out.toString());
+    assertTrue(closed.get());
+    verify(entityManager, times(1)).detach(first);
+    verify(entityManager, times(1)).detach(second);
+    verify(entityManager, times(1)).detach(third);
+    verify(transactionManager, times(1)).getTransaction(argThat(def -> def.isReadOnly()));
+  }
+
+  @Test
+  public void export_flushes_rows_before_the_stream_is_exhausted() throws Exception {
+    // arrange
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AtomicInteger bytesBeforeThirdRow = new AtomicInteger(-1);
+
+    // act
+    ndjsonExportService.export(
+        () ->
+            Stream.of(first, second, third)
+                .peek(
+                    row -> {
+                      if (row == third) {
+                        bytesBeforeThirdRow.set(out.size());
+                      }
+                    }),
+        out);
+
+    // assert
+    String firstTwoRows =
+        mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+    assertEquals(firstTwoRows.length(), bytesBeforeThirdRow.get());
+  }
+
+  @Test
+  public void export_rethrows_io_exceptions() {
+    // arrange
+    OutputStream out =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("client went away");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("client went away");
+          }
+        };
+
+    // act
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () -> ndjsonExportService.export(() -> Stream.of(first, second, third), out));
+
+    // assert
+    assertEquals("client went away", e.getMessage());
+  }
+}
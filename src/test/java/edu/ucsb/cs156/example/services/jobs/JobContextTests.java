@@ -1,9 +1,23 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class JobContextTests {
   @Test
@@ -12,7 +26,7 @@ public class JobContextTests {
     // arrange
 
     Job job1 = Job.builder().build();
-    JobContext ctx = new JobContext(null, job1);
+    JobContext ctx = new JobContext(null, null, job1);
 
     // act
     ctx.log("This is a log message");
@@ -20,4 +34,216 @@ public class JobContextTests {
     // assert
     assertEquals("This is a log message", job1.getLog());
   }
+
+  @Test
+  public void log_appends_numbered_lines_and_saves_the_job() throws Exception {
+
+    // arrange
+
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobsRepository, jobLogLinesRepository, job1);
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+
+    // assert
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(2)).saveAll(captor.capture());
+    List<JobLogLine> saved = captor.getAllValues().stream().flatMap(List::stream).toList();
+    assertEquals(2, saved.size());
+    assertEquals(17L, saved.get(0).getJobId());
+    assertEquals(0, saved.get(0).getLineNumber());
+    assertEquals("first", saved.get(0).getMessage());
+    assertEquals(1, saved.get(1).getLineNumber());
+    assertEquals("second", saved.get(1).getMessage());
+    verify(jobsRepository, times(2)).save(job1);
+    assertEquals("first\nsecond", job1.getLog());
+  }
+
+  @Test
+  public void log_summary_keeps_only_the_most_recent_lines() throws Exception {
+
+    // arrange
+
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(null, null, job1);
+
+    // act
+    IntStream.range(0, JobContext.SUMMARY_LINES + 5).forEach(i -> ctx.log("line " + i));
+
+    // assert
+    String expected =
+        IntStream.range(5, JobContext.SUMMARY_LINES + 5)
+            .mapToObj(i -> "line " + i)
+            .collect(Collectors.joining("\n"));
+    assertEquals(expected, job1.getLog());
+  }
+
+  @Test
+  public void flush_without_pending_lines_only_saves_the_job() throws Exception {
+
+    // arrange
+
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, jobLogLinesRepository, job1);
+
+    // act
+    ctx.flush();
+
+    // assert
+    verify(jobLogLinesRepository, times(0)).saveAll(any());
+    verify(jobsRepository, times(1)).save(job1);
+  }
+
+  @Test
+  public void buffered_log_flushes_once_enough_lines_are_pending() throws Exception {
+
+    // arrange
+
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, jobLogLinesRepository, job1, 3, 1000, clock);
+
+    // act
+    ctx.log("one");
+    ctx.log("two");
+    ctx.flushIfDue();
+    verify(jobLogLinesRepository, times(0)).saveAll(any());
+    ctx.log("three");
+
+    // assert
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).saveAll(captor.capture());
+    assertEquals(3, captor.getValue().size());
+    verify(jobsRepository, times(1)).save(job1);
+  }
+
+  @Test
+  public void buffered_log_flushes_once_the_interval_has_passed() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L, 500L, 1500L, 1500L, 3000L);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(null, jobLogLinesRepository, job1, 50, 1000, clock);
+
+    // act
+    ctx.log("one");
+    ctx.log("two");
+
+    // assert
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+    ctx.flushIfDue();
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+  }
+
+  @Test
+  public void flush_if_due_writes_pending_lines_after_the_interval() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L, 500L, 1500L, 1500L);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(null, jobLogLinesRepository, job1, 50, 1000, clock);
+
+    // act
+    ctx.log("one");
+    ctx.flushIfDue();
+
+    // assert
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+  }
+
+  @Test
+  public void progress_is_clamped_and_saved_once_the_interval_has_passed() throws Exception {
+
+    // arrange
+
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L, 500L, 500L, 1500L, 1500L);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, null, job1, 50, 1000, clock);
+
+    // act
+    ctx.progress(150, "loading", 7L);
+    ctx.flushIfDue();
+    verify(jobsRepository, times(0)).save(job1);
+    ctx.progress(-5, "starting over", 0L);
+
+    // assert
+    verify(jobsRepository, times(1)).save(job1);
+    assertEquals(0, job1.getProgressPercent());
+    assertEquals("starting over", job1.getCurrentStep());
+    assertEquals(0L, job1.getItemsProcessed());
+  }
+
+  @Test
+  public void progress_is_saved_by_flush_if_due() throws Exception {
+
+    // arrange
+
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    Clock clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L, 500L, 1500L, 1500L, 1500L);
+    Job job1 = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, null, job1, 50, 1000, clock);
+
+    // act
+    ctx.progress(40, "loading", 4L);
+    ctx.flushIfDue();
+    ctx.flushIfDue();
+
+    // assert
+    verify(jobsRepository, times(1)).save(job1);
+    assertEquals(40, job1.getProgressPercent());
+  }
+
+  @Test
+  public void cancel_is_visible_to_the_job() throws Exception {
+
+    // arrange
+
+    JobContext ctx = new JobContext(null, null, Job.builder().build());
+
+    // act
+    boolean before = ctx.isCancelled();
+    ctx.cancel();
+
+    // assert
+    assertEquals(false, before);
+    assertEquals(true, ctx.isCancelled());
+  }
+
+  @Test
+  public void line_listener_sees_each_line_as_it_is_logged() throws Exception {
+
+    // arrange
+
+    Job job1 = Job.builder().id(5L).build();
+    JobContext ctx = new JobContext(null, null, job1);
+    List<String> seen = new ArrayList<>();
+    ctx.onLine(line -> seen.add(line.getLineNumber() + ":" + line.getMessage()));
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+
+    // assert
+    assertEquals(List.of("0:first", "1:second"), seen);
+  }
 }
@@ -0,0 +1,381 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobLogStreamServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Spy @InjectMocks private JobLogStreamService service;
+
+  /** Records each event as "name[id]=data" instead of writing it to a response. */
+  static class RecordingEmitter extends SseEmitter {
+    final List<String> events = new ArrayList<>();
+    boolean completed = false;
+    boolean broken = false;
+    Runnable onCompletion;
+    Consumer<Throwable> onError;
+
+    @Override
+    public synchronized void onCompletion(Runnable callback) {
+      onCompletion = callback;
+    }
+
+    @Override
+    public synchronized void onError(Consumer<Throwable> callback) {
+      onError = callback;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (broken) {
+        throw new IOException("client went away");
+      }
+      String raw =
+          builder.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+      String name = field(raw, "event:");
+      String id = field(raw, "id:");
+      events.add(name + (id.isEmpty() ? "" : "[" + id + "]") + "=" + field(raw, "data:"));
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+
+    private static String field(String raw, String prefix) {
+      return raw.lines()
+          .filter(l -> l.startsWith(prefix))
+          .map(l -> l.substring(prefix.length()))
+          .findFirst()
+          .orElse("");
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    streamOn(Runnable::run);
+  }
+
+  private void streamOn(Executor executor) {
+    ReflectionTestUtils.setField(service, "streamExecutor", executor);
+  }
+
+  private static void runAll(List<Runnable> queued) {
+    while (!queued.isEmpty()) {
+      queued.remove(0).run();
+    }
+  }
+
+  private RecordingEmitter nextEmitter() {
+    RecordingEmitter emitter = new RecordingEmitter();
+    doReturn(emitter).when(service).newEmitter();
+    return emitter;
+  }
+
+  private static JobLogLine line(long jobId, int lineNumber, String message) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message(message).build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<Long, ?> subscribers() {
+    return (Map<Long, ?>) ReflectionTestUtils.getField(service, "subscribers");
+  }
+
+  @Test
+  public void new_emitters_use_the_configured_timeout() {
+    ReflectionTestUtils.setField(service, "timeoutMs", 1234L);
+    assertEquals(1234L, service.newEmitter().getTimeout());
+  }
+
+  @Test
+  public void finished_job_sends_its_log_and_status_then_closes() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(7L, -1))
+        .thenReturn(List.of(line(7L, 0, "first"), line(7L, 1, "second")));
+    when(jobsRepository.findStatusById(7L)).thenReturn(Optional.of("complete"));
+
+    // act
+    SseEmitter result = service.subscribe(7L, -1);
+
+    // assert
+    assertEquals(emitter, result);
+    assertEquals(List.of("log[0]=first", "log[1]=second", "status=complete"), emitter.events);
+    assertTrue(emitter.completed);
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void running_job_gets_pushed_lines_in_order_and_catches_up_gaps() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(8L)).thenReturn(Optional.of("running"));
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(8L, 0))
+        .thenReturn(List.of(line(8L, 1, "b"), line(8L, 2, "c")));
+    Job job = Job.builder().id(8L).status("complete").build();
+
+    // act
+    service.subscribe(8L, -1);
+    service.publishLine(line(8L, 0, "a"));
+    service.publishLine(line(8L, 2, "c"));
+    service.catchUpAll();
+    service.catchUpAll();
+    service.publishStatus(job);
+    service.publishLine(line(8L, 3, "too late"));
+
+    // assert
+    assertEquals(
+        List.of("status=running", "log[0]=a", "log[1]=b", "log[2]=c", "status=complete"),
+        emitter.events);
+    assertTrue(emitter.completed);
+    // by the second catch-up, and again before the stream closes
+    verify(jobLogLinesRepository, times(2))
+        .findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(8L, 2);
+  }
+
+  @Test
+  public void reconnecting_client_resumes_after_its_last_event_id() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(9L, 4))
+        .thenReturn(List.of(line(9L, 5, "sixth")));
+    when(jobsRepository.findStatusById(9L)).thenReturn(Optional.of("running"));
+
+    // act
+    service.subscribe(9L, 4);
+
+    // assert
+    assertEquals(List.of("log[5]=sixth", "status=running"), emitter.events);
+    assertFalse(emitter.completed);
+  }
+
+  @Test
+  public void stream_for_a_deleted_job_closes_without_events() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+
+    // act
+    service.subscribe(10L, -1);
+
+    // assert
+    assertEquals(List.of(), emitter.events);
+    assertTrue(emitter.completed);
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void broken_connections_are_dropped() {
+    // arrange
+    RecordingEmitter healthy = nextEmitter();
+    when(jobsRepository.findStatusById(11L)).thenReturn(Optional.of("running"));
+    service.subscribe(11L, -1);
+    RecordingEmitter broken = nextEmitter();
+    service.subscribe(11L, -1);
+    broken.broken = true;
+
+    // act
+    service.publishLine(line(11L, 0, "a"));
+    service.publishLine(line(11L, 1, "b"));
+
+    // assert
+    assertEquals(List.of("status=running", "log[0]=a", "log[1]=b"), healthy.events);
+    assertEquals(List.of("status=running"), broken.events);
+    assertEquals(1, subscribers().size());
+  }
+
+  @Test
+  public void status_send_failure_leaves_the_stream_open_for_nobody() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(12L)).thenReturn(Optional.of("running"));
+    service.subscribe(12L, -1);
+    emitter.broken = true;
+
+    // act
+    service.publishStatus(Job.builder().id(12L).status("complete").build());
+
+    // assert
+    assertFalse(emitter.completed);
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void publishing_for_a_job_nobody_watches_does_nothing() {
+    service.publishLine(line(13L, 0, "a"));
+    service.publishStatus(Job.builder().id(13L).status("running").build());
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void connection_lost_during_catch_up_stops_the_rest_of_it() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(14L)).thenReturn(Optional.of("running"));
+    service.subscribe(14L, -1);
+    emitter.broken = true;
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(14L, -1))
+        .thenReturn(List.of(line(14L, 0, "a"), line(14L, 1, "b")));
+    when(jobsRepository.findStatusById(14L)).thenReturn(Optional.of("claimed"));
+
+    // act
+    service.catchUpAll();
+
+    // assert
+    assertEquals(List.of("status=running"), emitter.events);
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void connection_lost_before_the_final_status_does_not_complete() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(15L)).thenReturn(Optional.of("running"));
+    service.subscribe(15L, -1);
+    emitter.broken = true;
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(15L, -1))
+        .thenReturn(List.of(line(15L, 0, "a")));
+
+    // act
+    service.publishStatus(Job.builder().id(15L).status("error").build());
+
+    // assert
+    assertEquals(List.of("status=running"), emitter.events);
+    assertFalse(emitter.completed);
+  }
+
+  @Test
+  public void emitter_callbacks_unsubscribe() {
+    // arrange
+    when(jobsRepository.findStatusById(16L)).thenReturn(Optional.of("running"));
+    RecordingEmitter first = nextEmitter();
+    service.subscribe(16L, -1);
+    RecordingEmitter second = nextEmitter();
+    service.subscribe(16L, -1);
+
+    // act
+    first.onCompletion.run();
+    first.onCompletion.run();
+    assertEquals(1, subscribers().size());
+    second.onError.accept(new IOException("reset"));
+
+    // assert
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void pushes_are_written_on_the_stream_executor_one_drain_at_a_time() {
+    // arrange
+    List<Runnable> queued = new ArrayList<>();
+    streamOn(queued::add);
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(17L)).thenReturn(Optional.of("running"));
+
+    // act
+    service.subscribe(17L, -1);
+    service.publishLine(line(17L, 0, "a"));
+    service.publishLine(line(17L, 1, "b"));
+    service.catchUpAll();
+
+    // assert: nothing is written by the caller, and one drain covers every queued task
+    assertEquals(List.of(), emitter.events);
+    assertEquals(1, queued.size());
+    runAll(queued);
+    assertEquals(List.of("status=running", "log[0]=a", "log[1]=b"), emitter.events);
+
+    service.catchUpAll();
+    assertEquals(1, queued.size());
+  }
+
+  @Test
+  public void a_client_that_falls_behind_gets_dropped_lines_from_the_next_catch_up() {
+    // arrange
+    List<Runnable> queued = new ArrayList<>();
+    streamOn(queued::add);
+    RecordingEmitter emitter = nextEmitter();
+    when(jobsRepository.findStatusById(18L)).thenReturn(Optional.of("running"));
+    int lines = JobLogStreamService.MAX_QUEUED_TASKS;
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(
+            18L, lines - 2))
+        .thenReturn(List.of(line(18L, lines - 1, "last")));
+
+    // act
+    service.subscribe(18L, -1);
+    for (int i = 0; i < lines; i++) {
+      service.publishLine(line(18L, i, "line " + i));
+    }
+    runAll(queued);
+    int sentBeforeCatchUp = emitter.events.size();
+    service.catchUpAll();
+    runAll(queued);
+
+    // assert: the initial catch-up took one slot, so the last pushed line was dropped
+    assertEquals(lines, sentBeforeCatchUp);
+    assertEquals("log[%d]=last".formatted(lines - 1), emitter.events.get(lines));
+  }
+
+  @Test
+  public void a_stream_the_executor_rejects_is_closed() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    streamOn(
+        task -> {
+          throw new TaskRejectedException("shutting down");
+        });
+
+    // act
+    service.subscribe(19L, -1);
+    service.publishLine(line(19L, 0, "a"));
+
+    // assert
+    assertEquals(List.of(), emitter.events);
+    assertTrue(subscribers().isEmpty());
+  }
+
+  @Test
+  public void a_failed_catch_up_does_not_stop_the_stream() {
+    // arrange
+    RecordingEmitter emitter = nextEmitter();
+    doThrow(new IllegalStateException("database is down")).when(jobsRepository).findStatusById(20L);
+
+    // act
+    service.subscribe(20L, -1);
+    service.publishLine(line(20L, 0, "a"));
+
+    // assert
+    assertEquals(List.of("log[0]=a"), emitter.events);
+    assertEquals(1, subscribers().size());
+  }
+}
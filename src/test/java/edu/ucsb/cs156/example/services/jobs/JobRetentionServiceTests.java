@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobRetentionServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Spy private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks private JobRetentionService service;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(service, "maxAgeDays", 30);
+    ReflectionTestUtils.setField(service, "maxRowsPerStatus", 100);
+    ReflectionTestUtils.setField(service, "batchSize", 2);
+    ReflectionTestUtils.setField(service, "maxBatches", 3);
+    when(jobsRepository.deleteByIds(any()))
+        .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+  }
+
+  private double pruned(String status, String reason) {
+    return meterRegistry
+        .counter(JobRetentionService.PRUNED_METRIC, "status", status, "reason", reason)
+        .count();
+  }
+
+  @Test
+  public void test_pruneJobs_deletes_old_jobs_in_batches() {
+    when(jobsRepository.findIdsByStatusAndUpdatedAtBefore(
+            eq("complete"), any(ZonedDateTime.class), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+
+    int pruned = service.pruneJobs();
+
+    assertEquals(3, pruned);
+    verify(jobsRepository).deleteByIds(List.of(1L, 2L));
+    verify(jobsRepository).deleteByIds(List.of(3L));
+    assertEquals(3.0, pruned("complete", "age"));
+    assertEquals(0.0, pruned("error", "age"));
+  }
+
+  @Test
+  public void test_pruneJobs_stops_after_maxBatches() {
+    when(jobsRepository.findIdsByStatusAndUpdatedAtBefore(
+            eq("error"), any(ZonedDateTime.class), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L, 6L), List.of(7L));
+
+    int pruned = service.pruneJobs();
+
+    assertEquals(6, pruned);
+    verify(jobsRepository, times(3)).deleteByIds(any());
+    assertEquals(6.0, pruned("error", "age"));
+  }
+
+  @Test
+  public void test_pruneJobs_keeps_newest_rows_per_status() {
+    when(jobsRepository.findIdsByStatusOrderByIdDesc("cancelled", PageRequest.of(100, 1)))
+        .thenReturn(List.of(40L));
+    when(jobsRepository.findIdsByStatusAndIdAtMost("cancelled", 40L, Limit.of(2)))
+        .thenReturn(List.of(10L, 20L), List.of());
+
+    int pruned = service.pruneJobs();
+
+    assertEquals(2, pruned);
+    verify(jobsRepository).deleteByIds(List.of(10L, 20L));
+    assertEquals(2.0, pruned("cancelled", "count"));
+    verify(jobsRepository, never()).findIdsByStatusAndIdAtMost(eq("complete"), anyLong(), any());
+  }
+
+  @Test
+  public void test_pruneJobs_does_nothing_when_rules_are_off() {
+    ReflectionTestUtils.setField(service, "maxAgeDays", 0);
+    ReflectionTestUtils.setField(service, "maxRowsPerStatus", 0);
+
+    assertEquals(0, service.pruneJobs());
+
+    verify(jobsRepository, never()).findIdsByStatusAndUpdatedAtBefore(anyString(), any(), any());
+    verify(jobsRepository, never()).findIdsByStatusOrderByIdDesc(anyString(), any());
+    verify(jobsRepository, never()).deleteByIds(any());
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class InMemoryArticleSearchServiceTests {
+
+  @Mock ArticleRepository articleRepository;
+
+  @InjectMocks InMemoryArticleSearchService articleSearchService;
+
+  Article spring =
+      Article.builder()
+          .id(1L)
+          .title("Spring Boot caching")
+          .url("https://example.com/spring-cache")
+          .explanation("How to cache with Spring and Caffeine")
+          .build();
+
+  Article react =
+      Article.builder()
+          .id(2L)
+          .title("React hooks")
+          .url("https://example.com/react")
+          .explanation("State in React components")
+          .build();
+
+  Article postgres =
+      Article.builder()
+          .id(3L)
+          .title("Postgres full text search")
+          .url("https://example.com/postgres")
+          .explanation("Indexes for search in Postgres, and a note on Spring Data")
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(articleRepository.findAll()).thenReturn(List.of(spring, react, postgres));
+    articleSearchService.rebuild();
+  }
+
+  @Test
+  public void tokenize_splits_on_punctuation_and_lower_cases() {
+    assertEquals(
+        List.of("https", "example", "com", "spring", "cache"),
+        ArticleSearchService.tokenize("https://example.com/Spring-Cache"));
+    assertEquals(List.of(), ArticleSearchService.tokenize(null));
+    assertEquals(List.of(), ArticleSearchService.tokenize("  -- "));
+  }
+
+  @Test
+  public void search_ranks_more_frequent_matches_first() {
+    assertEquals(List.of(spring, postgres), articleSearchService.search("SPRING", 10));
+    assertEquals(List.of(postgres, spring), articleSearchService.search("search spring", 10));
+    assertEquals(List.of(react), articleSearchService.search("react", 10));
+  }
+
+  @Test
+  public void search_prefers_shorter_articles_and_respects_the_limit() {
+    assertEquals(List.of(react, spring, postgres), articleSearchService.search("example", 10));
+    assertEquals(List.of(react, spring), articleSearchService.search("example", 2));
+  }
+
+  @Test
+  public void search_breaks_ties_by_id() {
+    Article copy5 = Article.builder().id(5L).title("React hooks").build();
+    Article copy4 = Article.builder().id(4L).title("React hooks").build();
+    articleSearchService.articleSaved(copy5);
+    articleSearchService.articleSaved(copy4);
+
+    assertEquals(List.of(copy4, copy5, react), articleSearchService.search("hooks", 10));
+  }
+
+  @Test
+  public void search_without_matches_is_empty() {
+    assertTrue(articleSearchService.search("kubernetes", 10).isEmpty());
+    assertTrue(articleSearchService.search("", 10).isEmpty());
+  }
+
+  @Test
+  public void saved_articles_replace_their_old_terms() {
+    Article edited =
+        Article.builder().id(2L).title("Vue components").url(null).explanation(null).build();
+
+    articleSearchService.articleSaved(edited);
+
+    assertTrue(articleSearchService.search("react", 10).isEmpty());
+    assertEquals(List.of(edited), articleSearchService.search("vue", 10));
+  }
+
+  @Test
+  public void deleted_articles_are_no_longer_found() {
+    articleSearchService.articleDeleted(1L);
+    articleSearchService.articleDeleted(99L);
+
+    assertEquals(List.of(postgres), articleSearchService.search("spring caffeine", 10));
+  }
+
+  @Test
+  public void an_empty_index_finds_nothing() {
+    when(articleRepository.findAll()).thenReturn(List.of());
+    articleSearchService.rebuild();
+
+    assertTrue(articleSearchService.search("spring", 10).isEmpty());
+  }
+}
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class PostgresArticleSearchServiceTests {
+
+  @Mock ArticleRepository articleRepository;
+
+  @InjectMocks PostgresArticleSearchService articleSearchService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void search_runs_the_full_text_query() {
+    Article article = Article.builder().id(1L).title("Spring").build();
+    when(articleRepository.searchFullText("spring", 5)).thenReturn(List.of(article));
+
+    assertEquals(List.of(article), articleSearchService.search("spring", 5));
+  }
+
+  @Test
+  public void search_matches_any_of_the_words() {
+    Article article = Article.builder().id(1L).title("Spring").build();
+    when(articleRepository.searchFullText("spring | cache | boot", 5)).thenReturn(List.of(article));
+
+    assertEquals(List.of(article), articleSearchService.search("Spring, cache & Boot!", 5));
+  }
+
+  @Test
+  public void a_query_without_words_matches_nothing() {
+    assertEquals(List.of(), articleSearchService.search(" & | ! ", 5));
+
+    verifyNoInteractions(articleRepository);
+  }
+
+  @Test
+  public void writes_need_no_index_maintenance() {
+    articleSearchService.articleSaved(Article.builder().id(1L).build());
+    articleSearchService.articleDeleted(1L);
+
+    verifyNoInteractions(articleRepository);
+  }
+}
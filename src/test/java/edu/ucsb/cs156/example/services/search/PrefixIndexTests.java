@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PrefixIndexTests {
+
+  record Item(String shortName, String longName) {}
+
+  Item chess = new Item("CHESS", "Chess Club");
+  Item ski = new Item("SKI", "Ski and Snowboard Club");
+  Item skydiving = new Item("SKY", "Skydiving Club");
+  Item unnamed = new Item(null, "   ");
+
+  PrefixIndex<Item> index =
+      new PrefixIndex<>(
+          List.of(skydiving, chess, ski, unnamed),
+          item -> Arrays.asList(item.shortName(), item.longName()));
+
+  @Test
+  public void suggest_matches_the_start_of_any_name_ignoring_case() {
+    assertEquals(List.of(ski, skydiving), index.suggest("sk", 10));
+    assertEquals(List.of(skydiving), index.suggest("SKYD", 10));
+    assertEquals(List.of(), index.suggest("skz", 10));
+  }
+
+  @Test
+  public void suggest_matches_the_start_of_any_word_keeping_ties_in_input_order() {
+    assertEquals(List.of(skydiving, chess, ski), index.suggest("club", 10));
+    assertEquals(List.of(ski), index.suggest("snow", 10));
+  }
+
+  @Test
+  public void suggest_normalizes_whitespace_in_the_prefix() {
+    assertEquals(List.of(chess), index.suggest("  chess   c", 10));
+    assertEquals(List.of(), index.suggest("chess clubs", 10));
+  }
+
+  @Test
+  public void suggest_returns_each_item_once_and_respects_the_limit() {
+    assertEquals(List.of(chess), index.suggest("chess", 10));
+    assertEquals(List.of(ski, chess), index.suggest("", 2));
+  }
+
+  @Test
+  public void an_empty_index_suggests_nothing() {
+    assertEquals(List.of(), new PrefixIndex<Item>(List.of(), item -> List.of()).suggest("a", 5));
+  }
+
+  @Test
+  public void the_empty_index_suggests_nothing() {
+    assertEquals(List.of(), PrefixIndex.<Item>empty().suggest("", 10));
+  }
+}
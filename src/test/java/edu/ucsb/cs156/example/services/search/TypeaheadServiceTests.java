@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class TypeaheadServiceTests {
+
+  @Mock private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Mock private RestaurantRepository restaurantRepository;
+
+  @InjectMocks private TypeaheadService typeaheadService;
+
+  UCSBOrganization zpr =
+      UCSBOrganization.builder()
+          .orgCode("ZPR")
+          .orgTranslationShort("ZETA PHI RHO")
+          .orgTranslation("ZETA PHI RHO")
+          .build();
+
+  UCSBOrganization osli =
+      UCSBOrganization.builder()
+          .orgCode("OSLI")
+          .orgTranslationShort("STUDENT LIFE")
+          .orgTranslation("OFFICE OF STUDENT LIFE")
+          .build();
+
+  Restaurant freebirds = Restaurant.builder().id(1L).name("Freebirds").build();
+
+  Restaurant habit = Restaurant.builder().id(2L).name("The Habit").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(ucsbOrganizationRepository.findAllByOrderByOrgCodeAsc()).thenReturn(List.of(osli, zpr));
+    when(restaurantRepository.findAll()).thenReturn(List.of(freebirds, habit));
+  }
+
+  @Test
+  public void suggestions_are_empty_before_the_first_refresh() {
+    assertEquals(List.of(), typeaheadService.suggestOrganizations("z", 5));
+    assertEquals(List.of(), typeaheadService.suggestRestaurants("f", 5));
+  }
+
+  @Test
+  public void refresh_indexes_organizations_by_short_and_full_translation() {
+    typeaheadService.refresh();
+
+    assertEquals(List.of(zpr), typeaheadService.suggestOrganizations("zeta", 5));
+    assertEquals(List.of(osli), typeaheadService.suggestOrganizations("office", 5));
+    assertEquals(List.of(osli), typeaheadService.suggestOrganizations("stu", 5));
+  }
+
+  @Test
+  public void refresh_indexes_restaurants_by_name() {
+    typeaheadService.refresh();
+
+    assertEquals(List.of(freebirds), typeaheadService.suggestRestaurants("free", 5));
+    assertEquals(List.of(habit), typeaheadService.suggestRestaurants("habit", 5));
+  }
+
+  @Test
+  public void each_index_can_be_refreshed_on_its_own() {
+    typeaheadService.refreshRestaurants();
+
+    assertEquals(List.of(), typeaheadService.suggestOrganizations("zeta", 5));
+    assertEquals(List.of(freebirds), typeaheadService.suggestRestaurants("f", 5));
+
+    typeaheadService.refreshOrganizations();
+
+    assertEquals(List.of(zpr), typeaheadService.suggestOrganizations("zeta", 5));
+  }
+}